@@ -0,0 +1,34 @@
+package com.lii.photouploader.config;
+
+import com.lii.photouploader.service.DependencyHealthMonitor;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Health indicators backed by the cached results of DependencyHealthMonitor
+ * Bean names give the indicator names used in the readiness group
+ */
+@Configuration
+public class HealthConfig {
+
+    @Bean
+    public HealthIndicator databaseHealthIndicator(DependencyHealthMonitor monitor) {
+        return () -> monitor.getHealth(DependencyHealthMonitor.DATABASE);
+    }
+
+    @Bean
+    public HealthIndicator s3HealthIndicator(DependencyHealthMonitor monitor) {
+        return () -> monitor.getHealth(DependencyHealthMonitor.S3);
+    }
+
+    @Bean
+    public HealthIndicator hikariPoolHealthIndicator(DependencyHealthMonitor monitor) {
+        return () -> monitor.getHealth(DependencyHealthMonitor.HIKARI_POOL);
+    }
+
+    @Bean
+    public HealthIndicator uploadQueueHealthIndicator(DependencyHealthMonitor monitor) {
+        return () -> monitor.getHealth(DependencyHealthMonitor.UPLOAD_QUEUE);
+    }
+}
@@ -0,0 +1,39 @@
+package com.lii.photouploader.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImageOptimizationConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageOptimizationConfig.class);
+
+    @Value("${image.optimization.pool-size:1}")
+    private int poolSize;
+
+    @Value("${image.optimization.queue-capacity:8}")
+    private int queueCapacity;
+
+    /**
+     * Bounded worker pool for CPU-heavy image re-encoding
+     * Keeps decoding and encoding off the request threads; tasks beyond
+     * the queue capacity are rejected and the original is kept as uploaded
+     */
+    @Bean(name = "imageOptimizationExecutor")
+    public ThreadPoolTaskExecutor imageOptimizationExecutor() {
+        logger.info("Initializing image optimization pool: {} threads, queue capacity {}", poolSize, queueCapacity);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-opt-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -130,14 +130,4 @@ public class PhotoController {
     public String health() {
         return "OK";
     }
-
-    /**
-     *
-     * Actuator health endpoint (alternative)
-     */
-    @GetMapping("/actuator/health")
-    @ResponseBody
-    public String actuatorHealth() {
-        return "{\"status\":\"UP\"}";
-    }
 }
@@ -0,0 +1,211 @@
+package com.lii.photouploader.controller;
+
+
+import com.lii.photouploader.model.UploadSession;
+import com.lii.photouploader.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * REST Controller for resumable uploads following the tus 1.0.0 core protocol
+ * POST creates an upload, HEAD reports its offset, PATCH appends a chunk
+ * and DELETE terminates it
+ */
+@RestController
+@RequestMapping("/uploads")
+public class ResumableUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadController.class);
+
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String OFFSET_CONTENT_TYPE = "application/offset+octet-stream";
+
+    // Seconds a client should wait before retrying a chunk rejected as busy
+    private static final String BUSY_RETRY_AFTER = "5";
+
+    private final ResumableUploadService resumableUploadService;
+    private final long maxChunkSize;
+
+    // Every in-flight chunk is buffered in full, so this caps chunk memory at permits x max chunk size
+    private final Semaphore chunkPermits;
+
+    public ResumableUploadController(ResumableUploadService resumableUploadService,
+                                     @Value("${upload.resumable.max-chunk-size:16777216}") long maxChunkSize,
+                                     @Value("${upload.resumable.max-concurrent-chunks:4}") int maxConcurrentChunks) {
+        this.resumableUploadService = resumableUploadService;
+        this.maxChunkSize = maxChunkSize;
+        this.chunkPermits = new Semaphore(maxConcurrentChunks);
+    }
+
+    /**
+     * Create a new upload
+     */
+    @PostMapping
+    public ResponseEntity<Void> createUpload(@RequestHeader("Upload-Length") long uploadLength,
+                                             @RequestHeader(value = "Upload-Metadata", required = false) String uploadMetadata) {
+        logger.info("Received resumable upload request of {} bytes", uploadLength);
+
+        try {
+            Map<String, String> metadata = parseMetadata(uploadMetadata);
+
+            String description = metadata.get("description");
+            if (description == null || description.trim().isEmpty()) {
+                description = "No description provided";
+            }
+
+            UploadSession session = resumableUploadService.createSession(uploadLength,
+                    metadata.get("filename"), metadata.get("filetype"), description);
+
+            return ResponseEntity.created(URI.create("/uploads/" + session.getId()))
+                    .header(TUS_RESUMABLE, TUS_VERSION)
+                    .build();
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid resumable upload request: {}", e.getMessage());
+            return ResponseEntity.badRequest().header(TUS_RESUMABLE, TUS_VERSION).build();
+        }
+    }
+
+    /**
+     * Report how many bytes of an upload have been received
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getUploadOffset(@PathVariable String id) {
+        UploadSession session;
+        try {
+            session = resumableUploadService.getSession(id);
+        } catch (RuntimeException e) {
+            // Reporting the final offset now would make the client stop before the photo exists
+            logger.error("Failed to complete upload {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().header(TUS_RESUMABLE, TUS_VERSION).build();
+        }
+
+        if (session == null) {
+            return ResponseEntity.notFound().header(TUS_RESUMABLE, TUS_VERSION).build();
+        }
+
+        return ResponseEntity.ok()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header("Upload-Offset", String.valueOf(session.getUploadOffset()))
+                .header("Upload-Length", String.valueOf(session.getUploadLength()))
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+
+    /**
+     * Append a chunk to an upload at the given offset
+     */
+    @PatchMapping(value = "/{id}", consumes = OFFSET_CONTENT_TYPE)
+    public ResponseEntity<Void> appendChunk(@PathVariable String id,
+                                            @RequestHeader("Upload-Offset") long uploadOffset,
+                                            HttpServletRequest request) {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            logger.warn("Rejected chunk without Content-Length for upload {}", id);
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).header(TUS_RESUMABLE, TUS_VERSION).build();
+        }
+
+        if (contentLength > maxChunkSize) {
+            logger.warn("Rejected chunk of {} bytes for upload {}", contentLength, id);
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).header(TUS_RESUMABLE, TUS_VERSION).build();
+        }
+
+        if (!chunkPermits.tryAcquire()) {
+            logger.warn("Too many chunks in flight, rejected chunk for upload {}", id);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(TUS_RESUMABLE, TUS_VERSION)
+                    .header("Retry-After", BUSY_RETRY_AFTER)
+                    .build();
+        }
+
+        try {
+            byte[] chunk;
+            try (InputStream body = request.getInputStream()) {
+                chunk = body.readNBytes((int) contentLength);
+            }
+
+            // Partial chunks are discarded; the client resumes from the last acknowledged offset
+            if (chunk.length != contentLength) {
+                logger.warn("Incomplete chunk for upload {}: {} of {} bytes", id, chunk.length, contentLength);
+                return ResponseEntity.badRequest().header(TUS_RESUMABLE, TUS_VERSION).build();
+            }
+
+            UploadSession session = resumableUploadService.appendChunk(id, uploadOffset, chunk);
+            if (session == null) {
+                return ResponseEntity.notFound().header(TUS_RESUMABLE, TUS_VERSION).build();
+            }
+
+            return ResponseEntity.noContent()
+                    .header(TUS_RESUMABLE, TUS_VERSION)
+                    .header("Upload-Offset", String.valueOf(session.getUploadOffset()))
+                    .build();
+
+        } catch (IllegalStateException e) {
+            logger.warn("Conflicting chunk for upload {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).header(TUS_RESUMABLE, TUS_VERSION).build();
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid chunk for upload {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().header(TUS_RESUMABLE, TUS_VERSION).build();
+
+        } catch (IOException e) {
+            logger.error("IO error reading chunk for upload {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().header(TUS_RESUMABLE, TUS_VERSION).build();
+
+        } catch (RuntimeException e) {
+            // Storage or completion failed; the client retries from the last acknowledged offset
+            logger.error("Failed to store chunk for upload {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().header(TUS_RESUMABLE, TUS_VERSION).build();
+
+        } finally {
+            chunkPermits.release();
+        }
+    }
+
+    /**
+     * Terminate an upload and discard what has been received
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> terminateUpload(@PathVariable String id) {
+        logger.info("Received request to terminate upload: {}", id);
+
+        if (!resumableUploadService.terminate(id)) {
+            return ResponseEntity.notFound().header(TUS_RESUMABLE, TUS_VERSION).build();
+        }
+        return ResponseEntity.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
+    }
+
+    /**
+     * Parse the tus Upload-Metadata header: comma-separated "key base64value" pairs
+     */
+    private Map<String, String> parseMetadata(String header) {
+        Map<String, String> metadata = new HashMap<>();
+        if (header == null || header.isBlank()) {
+            return metadata;
+        }
+
+        for (String pair : header.split(",")) {
+            String[] parts = pair.trim().split(" ", 2);
+            String value = parts.length > 1
+                    ? new String(Base64.getDecoder().decode(parts[1].trim()), StandardCharsets.UTF_8)
+                    : "";
+            metadata.put(parts[0], value);
+        }
+        return metadata;
+    }
+}
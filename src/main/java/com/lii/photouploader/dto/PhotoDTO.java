@@ -19,6 +19,7 @@ public class PhotoDTO {
     private String presignedUrl;
     private String contentType;
     private Long fileSize;
+    private Long bytesSaved;
     private LocalDateTime uploadedAt;
     private boolean urlExpired;
 
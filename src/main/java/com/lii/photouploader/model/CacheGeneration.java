@@ -0,0 +1,25 @@
+package com.lii.photouploader.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change counter for a cached table, shared by all tasks through the database
+ * Every write to the table bumps it; a task that sees a new value drops its
+ * own second-level cache entries for that table
+ */
+@Entity
+@Table(name = "cache_generations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheGeneration {
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+
+    @Column(name = "generation", nullable = false)
+    private Long generation;
+}
@@ -4,11 +4,15 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "photos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "photos")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,6 +42,9 @@ public class Photos {
     @Column(name = "content_type")
     private String contentType;
 
+    @Column(name = "bytes_saved")
+    private Long bytesSaved;
+
     @Column(name = "uploaded_at", nullable = false)
     private LocalDateTime uploadedAt;
 
@@ -0,0 +1,35 @@
+package com.lii.photouploader.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One S3 multipart part accepted for an upload session
+ * The multipart upload is completed from these ETags, not from ListParts,
+ * so a part overwritten by a losing request can never be assembled
+ */
+@Entity
+@Table(name = "upload_parts",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "part_number"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadPart {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false, length = 36)
+    private String sessionId;
+
+    @Column(name = "part_number", nullable = false)
+    private Integer partNumber;
+
+    @Column(name = "etag", nullable = false)
+    private String etag;
+
+    @Column(name = "part_size", nullable = false)
+    private Long partSize;
+}
@@ -0,0 +1,72 @@
+package com.lii.photouploader.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a resumable upload in progress
+ * Each session maps onto one S3 multipart upload; chunks are written
+ * straight through as parts, recorded in UploadPart
+ */
+@Entity
+@Table(name = "upload_sessions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "object_key", nullable = false, unique = true)
+    private String objectKey;
+
+    @Column(name = "s3_upload_id", nullable = false, length = 1024)
+    private String s3UploadId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "description", length = 500)
+    private String description;
+
+    @Column(name = "upload_length", nullable = false)
+    private Long uploadLength;
+
+    @Column(name = "upload_offset", nullable = false)
+    private Long uploadOffset;
+
+    @Column(name = "part_count", nullable = false)
+    private Integer partCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_activity_at", nullable = false)
+    private LocalDateTime lastActivityAt;
+
+    // Set once the photo is registered; the row is kept as a tombstone until it expires
+    @Column(name = "photo_id")
+    private Long photoId;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        lastActivityAt = createdAt;
+    }
+
+    public boolean isComplete() {
+        return uploadOffset.equals(uploadLength);
+    }
+
+    public boolean isRegistered() {
+        return photoId != null;
+    }
+}
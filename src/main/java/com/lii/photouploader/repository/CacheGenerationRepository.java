@@ -0,0 +1,23 @@
+package com.lii.photouploader.repository;
+
+
+import com.lii.photouploader.model.CacheGeneration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface CacheGenerationRepository extends JpaRepository<CacheGeneration, String> {
+
+        @Query("SELECT c.generation FROM CacheGeneration c WHERE c.name = ?1")
+        Optional<Long> findGeneration(String name);
+
+        @Transactional
+        @Modifying
+        @Query("UPDATE CacheGeneration c SET c.generation = c.generation + 1 WHERE c.name = ?1")
+        int increment(String name);
+    }
@@ -2,9 +2,14 @@ package com.lii.photouploader.repository;
 
 
 import com.lii.photouploader.model.Photos;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,11 +20,22 @@ public interface PhotoRepository extends JpaRepository<Photos, Long> {
 
         Optional<Photos> findByObjectKey(String objectKey);
 
+        // Cached per task; call GalleryCacheService.syncWithOtherTasks first
+        @QueryHints({
+                @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "gallery")
+        })
         List<Photos> findAllByOrderByUploadedAtDesc();
 
         @Query("SELECT p FROM Photos p WHERE p.urlExpiryTime <= ?1")
         List<Photos> findPhotosWithExpiredUrls(LocalDateTime currentTime);
 
+        // Writes only the optimization columns, so a concurrent URL refresh is never overwritten
+        @Transactional
+        @Modifying(clearAutomatically = true)
+        @Query("UPDATE Photos p SET p.fileSize = ?2, p.bytesSaved = ?3 WHERE p.id = ?1")
+        int updateOptimizedSize(Long id, long fileSize, long bytesSaved);
+
         boolean existsByObjectKey(String objectKey);
 
         void deleteByObjectKey(String objectKey);
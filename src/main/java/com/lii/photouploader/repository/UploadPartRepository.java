@@ -0,0 +1,18 @@
+package com.lii.photouploader.repository;
+
+
+import com.lii.photouploader.model.UploadPart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface UploadPartRepository extends JpaRepository<UploadPart, Long> {
+
+        List<UploadPart> findBySessionIdOrderByPartNumber(String sessionId);
+
+        @Transactional
+        void deleteBySessionId(String sessionId);
+    }
@@ -0,0 +1,47 @@
+package com.lii.photouploader.repository;
+
+
+import com.lii.photouploader.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+        List<UploadSession> findByLastActivityAtBefore(LocalDateTime cutoff);
+
+        @Query("SELECT s FROM UploadSession s WHERE s.uploadOffset = s.uploadLength AND s.photoId IS NULL")
+        List<UploadSession> findPendingCompletion();
+
+        // Reserves the next part number; fails if another request got there first
+        @Transactional
+        @Modifying(clearAutomatically = true)
+        @Query("UPDATE UploadSession s SET s.partCount = s.partCount + 1, s.lastActivityAt = ?4 " +
+                "WHERE s.id = ?1 AND s.uploadOffset = ?2 AND s.partCount = ?3 AND s.photoId IS NULL")
+        int claimPart(String id, long offset, int partCount, LocalDateTime now);
+
+        // Hands back a claimed part number whose upload failed, so the retry does not use up another
+        @Transactional
+        @Modifying(clearAutomatically = true)
+        @Query("UPDATE UploadSession s SET s.partCount = s.partCount - 1 " +
+                "WHERE s.id = ?1 AND s.uploadOffset = ?2 AND s.partCount = ?3")
+        int releasePart(String id, long offset, int partCount);
+
+        @Transactional
+        @Modifying(clearAutomatically = true)
+        @Query("UPDATE UploadSession s SET s.uploadOffset = ?3, s.lastActivityAt = ?4 " +
+                "WHERE s.id = ?1 AND s.uploadOffset = ?2")
+        int advanceOffset(String id, long offset, long newOffset, LocalDateTime now);
+
+        @Transactional
+        @Modifying(clearAutomatically = true)
+        @Query("UPDATE UploadSession s SET s.photoId = ?2, s.lastActivityAt = ?3 " +
+                "WHERE s.id = ?1 AND s.photoId IS NULL")
+        int markRegistered(String id, Long photoId, LocalDateTime now);
+    }
@@ -0,0 +1,304 @@
+package com.lii.photouploader.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Service class that checks external dependencies on a background schedule
+ * Health probes read the cached results, so probe frequency never turns
+ * into load on RDS or S3. Each check runs on its own thread with its own
+ * timeout, so one hung dependency cannot hold back the others
+ */
+@Service
+public class DependencyHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyHealthMonitor.class);
+
+    // Reported for saturation: still serving, so it maps to HTTP 200
+    public static final Status DEGRADED = new Status("DEGRADED", "Dependency is saturated");
+
+    public static final String DATABASE = "database";
+    public static final String S3 = "s3";
+    public static final String HIKARI_POOL = "hikariPool";
+    public static final String UPLOAD_QUEUE = "uploadQueue";
+
+    private record CheckResult(Health health, Instant checkedAt) {
+    }
+
+    private final DataSource dataSource;
+    private final S3Service s3Service;
+    private final ThreadPoolTaskExecutor imageOptimizationExecutor;
+
+    private final Map<String, Supplier<Health>> checks = new LinkedHashMap<>();
+    private final Map<String, CheckResult> results = new ConcurrentHashMap<>();
+
+    // Kept off the shared Spring scheduler, which also runs the upload sweep
+    private final ScheduledExecutorService checkScheduler;
+
+    // Runs the connection borrow so the database check can give up on it
+    private final ExecutorService connectionProbe;
+    private final AtomicBoolean connectionProbeRunning = new AtomicBoolean();
+
+    private Clock clock = Clock.systemUTC();
+
+    @Value("${health.check.enabled:true}")
+    private boolean enabled;
+
+    @Value("${health.check.interval-ms:15000}")
+    private long intervalMs;
+
+    @Value("${health.check.db-timeout-seconds:2}")
+    private int dbTimeoutSeconds;
+
+    @Value("${health.check.s3-timeout-ms:2000}")
+    private long s3TimeoutMs;
+
+    @Value("${health.check.queue-degraded-ratio:0.8}")
+    private double queueDegradedRatio;
+
+    public DependencyHealthMonitor(DataSource dataSource,
+                                   S3Service s3Service,
+                                   @Qualifier("imageOptimizationExecutor") ThreadPoolTaskExecutor imageOptimizationExecutor) {
+        this.dataSource = dataSource;
+        this.s3Service = s3Service;
+        this.imageOptimizationExecutor = imageOptimizationExecutor;
+
+        checks.put(HIKARI_POOL, this::checkHikariPool);
+        checks.put(DATABASE, this::checkDatabase);
+        checks.put(S3, this::checkS3);
+        checks.put(UPLOAD_QUEUE, this::checkUploadQueue);
+
+        this.checkScheduler = Executors.newScheduledThreadPool(checks.size(), daemonThreads("health-check-"));
+        this.connectionProbe = Executors.newSingleThreadExecutor(daemonThreads("health-db-probe-"));
+    }
+
+    /**
+     * Run every check once, then schedule them
+     * Readiness is only published after startup listeners return, so the
+     * first readiness probe already sees real results
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Dependency health checks are disabled");
+            return;
+        }
+
+        List<Future<?>> firstRun = new ArrayList<>();
+        for (String name : checks.keySet()) {
+            firstRun.add(checkScheduler.submit(() -> runCheck(name)));
+        }
+
+        try {
+            for (Future<?> check : firstRun) {
+                check.get(intervalMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Initial dependency checks did not finish: {}", e.getMessage());
+        }
+
+        for (String name : checks.keySet()) {
+            checkScheduler.scheduleWithFixedDelay(() -> runCheck(name), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        checkScheduler.shutdownNow();
+        connectionProbe.shutdownNow();
+    }
+
+    void runCheck(String name) {
+        Health health;
+        try {
+            health = checks.get(name).get();
+        } catch (Exception e) {
+            // An exception would cancel the fixed-delay schedule for this check
+            logger.error("{} health check failed: {}", name, e.getMessage());
+            health = Health.down().withDetail("error", String.valueOf(e.getMessage())).build();
+        }
+        results.put(name, new CheckResult(health, clock.instant()));
+    }
+
+    /**
+     * Get the cached result of a dependency check
+     * @param name One of the dependency names defined on this class
+     * @return The cached health, DOWN if this check has stopped running
+     */
+    public Health getHealth(String name) {
+        if (!enabled) {
+            return Health.unknown().withDetail("reason", "Checks disabled").build();
+        }
+
+        CheckResult result = results.get(name);
+        if (result == null) {
+            return Health.unknown().withDetail("reason", "Not checked yet").build();
+        }
+
+        // A stuck check must not keep reporting its last good result
+        if (Duration.between(result.checkedAt(), clock.instant()).toMillis() > intervalMs * 3) {
+            return Health.down()
+                    .withDetail("reason", "Health check stalled")
+                    .withDetail("lastChecked", result.checkedAt().toString())
+                    .build();
+        }
+
+        return Health.status(result.health().getStatus())
+                .withDetails(result.health().getDetails())
+                .withDetail("lastChecked", result.checkedAt().toString())
+                .build();
+    }
+
+    /**
+     * Borrow a connection from the pool and validate it
+     * A borrow that cannot finish while the pool is saturated means the
+     * database is busy, not down, so it is reported as DEGRADED rather than
+     * taking every task out of readiness at once
+     */
+    private Health checkDatabase() {
+        // A borrow still stuck from an earlier run is not stacked up again
+        if (connectionProbeRunning.get()) {
+            return borrowStalled("Previous connection check still running");
+        }
+
+        Future<Boolean> probe = connectionProbe.submit(() -> {
+            connectionProbeRunning.set(true);
+            try (Connection connection = dataSource.getConnection()) {
+                return connection.isValid(dbTimeoutSeconds);
+            } finally {
+                connectionProbeRunning.set(false);
+            }
+        });
+
+        try {
+            if (probe.get(dbTimeoutSeconds, TimeUnit.SECONDS)) {
+                return Health.up().build();
+            }
+            return Health.down().withDetail("reason", "Connection validation failed").build();
+        } catch (TimeoutException e) {
+            probe.cancel(true);
+            logger.error("Database health check timed out after {}s", dbTimeoutSeconds);
+            return borrowStalled("Timed out after " + dbTimeoutSeconds + "s");
+        } catch (InterruptedException e) {
+            probe.cancel(true);
+            Thread.currentThread().interrupt();
+            return Health.down().withDetail("reason", "Interrupted").build();
+        } catch (ExecutionException e) {
+            logger.error("Database health check failed: {}", e.getCause().getMessage());
+            return Health.down().withDetail("error", String.valueOf(e.getCause().getMessage())).build();
+        }
+    }
+
+    private Health borrowStalled(String reason) {
+        if (isPoolSaturated()) {
+            return Health.status(DEGRADED)
+                    .withDetail("reason", reason)
+                    .withDetail("pool", "saturated")
+                    .build();
+        }
+        return Health.down().withDetail("reason", reason).build();
+    }
+
+    /**
+     * Every connection is in use, or a request thread besides the probe is waiting for one
+     */
+    private boolean isPoolSaturated() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return false;
+            }
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                return false;
+            }
+            int otherWaiters = pool.getThreadsAwaitingConnection() - (connectionProbeRunning.get() ? 1 : 0);
+            return pool.getActiveConnections() >= hikari.getMaximumPoolSize() || otherWaiters > 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private Health checkS3() {
+        if (s3Service.isBucketAccessible(Duration.ofMillis(s3TimeoutMs))) {
+            return Health.up().build();
+        }
+        return Health.down().withDetail("reason", "Bucket HEAD failed").build();
+    }
+
+    private Health checkHikariPool() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return Health.unknown().withDetail("reason", "Not a Hikari pool").build();
+            }
+
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                return Health.unknown().withDetail("reason", "Pool not started").build();
+            }
+
+            // Leave out the connection the database check may be holding right now
+            int active = Math.max(0, pool.getActiveConnections() - (connectionProbeRunning.get() ? 1 : 0));
+            int awaiting = pool.getThreadsAwaitingConnection();
+            int max = hikari.getMaximumPoolSize();
+            boolean saturated = awaiting > 0 || active >= max;
+
+            return Health.status(saturated ? DEGRADED : Status.UP)
+                    .withDetail("active", active)
+                    .withDetail("idle", pool.getIdleConnections())
+                    .withDetail("max", max)
+                    .withDetail("threadsAwaiting", awaiting)
+                    .build();
+        } catch (Exception e) {
+            logger.error("Hikari pool health check failed: {}", e.getMessage());
+            return Health.unknown().withDetail("error", e.getMessage()).build();
+        }
+    }
+
+    private Health checkUploadQueue() {
+        BlockingQueue<Runnable> queue = imageOptimizationExecutor.getThreadPoolExecutor().getQueue();
+        int depth = queue.size();
+        int capacity = depth + queue.remainingCapacity();
+        boolean saturated = capacity > 0 && depth >= capacity * queueDegradedRatio;
+
+        return Health.status(saturated ? DEGRADED : Status.UP)
+                .withDetail("depth", depth)
+                .withDetail("capacity", capacity)
+                .withDetail("activeWorkers", imageOptimizationExecutor.getActiveCount())
+                .build();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return factory;
+    }
+}
@@ -0,0 +1,82 @@
+package com.lii.photouploader.service;
+
+import com.lii.photouploader.model.CacheGeneration;
+import com.lii.photouploader.model.Photos;
+import com.lii.photouploader.repository.CacheGenerationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class that keeps each task's photo cache in step with the others
+ * Hibernate only invalidates the second-level cache for writes made on the
+ * same task. Writers bump a generation counter in the database, and readers
+ * compare it with the last value they saw before trusting the cache, which
+ * costs one primary-key read instead of the gallery query
+ */
+@Service
+public class GalleryCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GalleryCacheService.class);
+
+    public static final String PHOTOS = "photos";
+
+    private final CacheGenerationRepository cacheGenerationRepository;
+    private final Cache cache;
+
+    private final AtomicLong seenGeneration = new AtomicLong(-1);
+
+    public GalleryCacheService(CacheGenerationRepository cacheGenerationRepository,
+                               EntityManagerFactory entityManagerFactory) {
+        this.cacheGenerationRepository = cacheGenerationRepository;
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    /**
+     * Create the photos generation row on first start
+     */
+    @PostConstruct
+    public void createGeneration() {
+        if (cacheGenerationRepository.existsById(PHOTOS)) {
+            return;
+        }
+        try {
+            cacheGenerationRepository.save(new CacheGeneration(PHOTOS, 0L));
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Cache generation row was created by another task");
+        }
+    }
+
+    /**
+     * Record a write to the photos table for the other tasks
+     * Call it inside the writing transaction, or after it commits, so no task
+     * can see the new generation and reload the old rows
+     */
+    @Transactional
+    public void markChanged() {
+        if (cacheGenerationRepository.increment(PHOTOS) == 0) {
+            logger.warn("Cache generation row is missing; other tasks will not see this change");
+        }
+    }
+
+    /**
+     * Drop this task's cached photos and gallery results if any task has written since the last check
+     * A result loaded concurrently with a write can still be cached; the region TTL bounds that
+     */
+    public void syncWithOtherTasks() {
+        long generation = cacheGenerationRepository.findGeneration(PHOTOS).orElse(0L);
+        if (seenGeneration.getAndSet(generation) != generation) {
+            cache.evictEntityData(Photos.class);
+            cache.evictQueryRegions();
+            logger.debug("Photo cache generation changed to {}, evicted local entries", generation);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.lii.photouploader.service;
+
+import com.lii.photouploader.repository.PhotoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service class for shrinking stored photos after upload
+ * Runs ImageOptimizer on a bounded worker pool and replaces the S3 object
+ * only when the result is smaller than the original
+ */
+@Service
+public class ImageOptimizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageOptimizationService.class);
+
+    private final PhotoRepository photoRepository;
+    private final S3Service s3Service;
+    private final GalleryCacheService galleryCacheService;
+    private final TaskExecutor executor;
+    private final ImageOptimizer imageOptimizer;
+    private final Counter bytesSavedCounter;
+
+    @Value("${image.optimization.enabled:true}")
+    private boolean enabled;
+
+    public ImageOptimizationService(PhotoRepository photoRepository,
+                                    S3Service s3Service,
+                                    GalleryCacheService galleryCacheService,
+                                    @Qualifier("imageOptimizationExecutor") TaskExecutor executor,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${image.optimization.jpeg-quality:0.85}") float jpegQuality,
+                                    @Value("${image.optimization.max-pixels:16000000}") long maxPixels) {
+        this.photoRepository = photoRepository;
+        this.s3Service = s3Service;
+        this.galleryCacheService = galleryCacheService;
+        this.executor = executor;
+        this.imageOptimizer = new ImageOptimizer(jpegQuality, maxPixels);
+        this.bytesSavedCounter = Counter.builder("photos.optimization.bytes.saved")
+                .description("Bytes removed from stored photos by on-upload optimization")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a stored photo for optimization on the worker pool
+     * When called inside a transaction the task is only submitted after commit,
+     * so the worker always sees the saved photo row. Queued tasks only hold the
+     * object key; the original is read back from S3 by the worker
+     * @param photoId ID of the saved photo
+     * @param objectKey S3 object key holding the original
+     * @param contentType MIME type of the original
+     */
+    public void scheduleOptimization(Long photoId, String objectKey, String contentType) {
+        if (!enabled || !isOptimizable(contentType)) {
+            return;
+        }
+
+        Runnable task = () -> optimizeStoredPhoto(photoId, objectKey, contentType);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(photoId, task);
+                }
+            });
+        } else {
+            submit(photoId, task);
+        }
+    }
+
+    private void submit(Long photoId, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (TaskRejectedException e) {
+            logger.warn("Optimization queue full, keeping original for photo: {}", photoId);
+        }
+    }
+
+    /**
+     * Optimize the photo and replace the S3 object if bytes were saved
+     */
+    private void optimizeStoredPhoto(Long photoId, String objectKey, String contentType) {
+        try {
+            byte[] original = s3Service.downloadFile(objectKey);
+            byte[] optimized = imageOptimizer.optimize(original, contentType);
+            if (optimized == null) {
+                logger.info("Photo {} not eligible or not smaller when re-encoded, keeping original", photoId);
+                return;
+            }
+
+            if (!photoRepository.existsById(photoId)) {
+                logger.info("Photo {} was deleted before optimization finished", photoId);
+                return;
+            }
+
+            // Same key, so presigned URLs already handed out stay valid
+            s3Service.uploadBytes(objectKey, optimized, contentType);
+
+            long saved = original.length - optimized.length;
+            if (photoRepository.updateOptimizedSize(photoId, optimized.length, saved) == 0) {
+                // Deleted while the new bytes were uploading; drop the object the delete already removed once
+                logger.info("Photo {} was deleted during optimization, removing re-uploaded object", photoId);
+                s3Service.deleteFile(objectKey);
+                return;
+            }
+            // The update has committed, so other tasks reload the new size once they see this
+            galleryCacheService.markChanged();
+
+            bytesSavedCounter.increment(saved);
+            logger.info("Optimized photo {}: {} -> {} bytes (saved {})",
+                    photoId, original.length, optimized.length, saved);
+
+        } catch (Exception e) {
+            logger.error("Failed to optimize photo {}: {}", photoId, e.getMessage(), e);
+        }
+    }
+
+    private boolean isOptimizable(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        return type.equals("image/jpeg") || type.equals("image/jpg") || type.equals("image/png");
+    }
+}
@@ -0,0 +1,424 @@
+package com.lii.photouploader.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Re-encodes JPEG and PNG images without metadata
+ * Images that would change appearance once their metadata is gone
+ * (EXIF rotation, non-sRGB color profiles) or that decode only in part
+ * (animated PNGs) are left untouched
+ */
+public class ImageOptimizer {
+
+    // PNG gAMA value for the sRGB transfer curve (1/2.2 scaled by 100000)
+    private static final int SRGB_GAMMA = 45455;
+
+    private static final double PRIMARY_TOLERANCE = 0.002;
+    private static final double CURVE_TOLERANCE = 0.01;
+
+    private final float jpegQuality;
+    private final long maxPixels;
+
+    public ImageOptimizer(float jpegQuality, long maxPixels) {
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Re-encode an image without metadata
+     * @param original The original image bytes
+     * @param contentType MIME type of the original
+     * @return The re-encoded bytes, or null if the image is not eligible or would not shrink
+     */
+    public byte[] optimize(byte[] original, String contentType) throws IOException {
+        String type = contentType.toLowerCase();
+        boolean jpeg = type.equals("image/jpeg") || type.equals("image/jpg");
+
+        // Stripping EXIF would drop the rotation flag and display the photo sideways
+        if (jpeg && readExifOrientation(original) != 1) {
+            return null;
+        }
+
+        // ImageIO only decodes the first frame, so the animation would be lost
+        if (!jpeg && isAnimatedPng(original)) {
+            return null;
+        }
+
+        // Without the profile a wide-gamut image would be shown as sRGB with shifted colors
+        if (hasNonSrgbColorProfile(original, jpeg)) {
+            return null;
+        }
+
+        BufferedImage image = decode(original);
+        if (image == null || (jpeg && image.getColorModel().hasAlpha())) {
+            return null;
+        }
+
+        byte[] optimized = jpeg
+                ? encode(image, "jpeg", jpegQuality)
+                : encode(image, "png", 0.0f); // 0.0 selects maximum deflate compression
+
+        return optimized.length < original.length ? optimized : null;
+    }
+
+    /**
+     * Decode the first image, refusing anything too large to hold in memory
+     */
+    private BufferedImage decode(byte[] data) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Encode an image with no metadata attached
+     */
+    private byte[] encode(BufferedImage image, String formatName, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer available for " + formatName);
+        }
+
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Read the EXIF orientation tag from a JPEG
+     * @param jpeg The JPEG bytes
+     * @return The orientation (1 when absent), or -1 if the EXIF block is malformed
+     */
+    static int readExifOrientation(byte[] jpeg) {
+        try {
+            int pos = 2; // skip SOI
+            while (pos + 4 <= jpeg.length && (jpeg[pos] & 0xFF) == 0xFF) {
+                int marker = jpeg[pos + 1] & 0xFF;
+                if (marker == 0xDA || marker == 0xD9) {
+                    break; // start of scan, no more metadata segments
+                }
+                int length = readShort(jpeg, pos + 2, false);
+
+                if (marker == 0xE1 && hasPrefix(jpeg, pos + 4, "Exif\0\0")) {
+                    int tiff = pos + 10;
+                    boolean littleEndian = jpeg[tiff] == 'I';
+                    int ifd = tiff + readInt(jpeg, tiff + 4, littleEndian);
+                    int entries = readShort(jpeg, ifd, littleEndian);
+                    for (int i = 0; i < entries; i++) {
+                        int entry = ifd + 2 + i * 12;
+                        if (readShort(jpeg, entry, littleEndian) == 0x0112) {
+                            return readShort(jpeg, entry + 8, littleEndian);
+                        }
+                    }
+                    return 1;
+                }
+                pos += 2 + length;
+            }
+            return 1;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Check whether a PNG is an APNG (acTL chunk before the image data)
+     * @param png The PNG bytes
+     * @return true if the PNG is animated or its chunks cannot be read
+     */
+    static boolean isAnimatedPng(byte[] png) {
+        try {
+            return readPngInfo(png).animated;
+        } catch (RuntimeException | DataFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Check whether an image declares a color space other than sRGB
+     * @param data The image bytes
+     * @param jpeg true for JPEG, false for PNG
+     * @return true if the image carries a non-sRGB profile or one that cannot be read
+     */
+    static boolean hasNonSrgbColorProfile(byte[] data, boolean jpeg) {
+        try {
+            if (jpeg) {
+                byte[] profile = readJpegIccProfile(data);
+                return profile != null && !isSrgb(ICC_Profile.getInstance(profile));
+            }
+
+            PngInfo info = readPngInfo(data);
+            if (info.srgb) {
+                return false;
+            }
+            if (info.iccProfile != null) {
+                return !isSrgb(ICC_Profile.getInstance(info.iccProfile));
+            }
+            return info.chromaticities || (info.gamma != null && info.gamma != SRGB_GAMMA);
+        } catch (RuntimeException | DataFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Compare a profile's primaries and tone curves with sRGB
+     * Profile names are unreliable ("linear sRGB", vendor copies), so the
+     * colorimetry itself is checked
+     */
+    private static boolean isSrgb(ICC_Profile profile) {
+        if (profile.getColorSpaceType() != ColorSpace.TYPE_RGB) {
+            return false;
+        }
+
+        ICC_Profile srgb = ICC_Profile.getInstance(ColorSpace.CS_sRGB);
+        int[] primaries = {ICC_Profile.icSigRedColorantTag, ICC_Profile.icSigGreenColorantTag,
+                ICC_Profile.icSigBlueColorantTag};
+        for (int tag : primaries) {
+            byte[] actual = profile.getData(tag);
+            byte[] expected = srgb.getData(tag);
+            if (actual == null || actual.length < 20) {
+                return false;
+            }
+            for (int i = 0; i < 3; i++) {
+                if (Math.abs(readFixed(actual, 8 + i * 4) - readFixed(expected, 8 + i * 4)) > PRIMARY_TOLERANCE) {
+                    return false;
+                }
+            }
+        }
+
+        int[] curves = {ICC_Profile.icSigRedTRCTag, ICC_Profile.icSigGreenTRCTag, ICC_Profile.icSigBlueTRCTag};
+        for (int tag : curves) {
+            byte[] curve = profile.getData(tag);
+            if (curve == null) {
+                return false;
+            }
+            for (double x : new double[]{0.1, 0.5}) {
+                if (Math.abs(evaluateCurve(curve, x) - srgbTransfer(x)) > CURVE_TOLERANCE) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static double srgbTransfer(double x) {
+        return x <= 0.04045 ? x / 12.92 : Math.pow((x + 0.055) / 1.055, 2.4);
+    }
+
+    /**
+     * Evaluate an ICC 'curv' or 'para' tone curve
+     */
+    private static double evaluateCurve(byte[] curve, double x) {
+        String type = new String(curve, 0, 4, StandardCharsets.ISO_8859_1);
+
+        if (type.equals("curv")) {
+            int count = readInt(curve, 8, false);
+            if (count == 0) {
+                return x;
+            }
+            if (count == 1) {
+                return Math.pow(x, readShort(curve, 12, false) / 256.0);
+            }
+            double position = x * (count - 1);
+            int index = Math.min((int) position, count - 2);
+            double low = readShort(curve, 12 + index * 2, false) / 65535.0;
+            double high = readShort(curve, 12 + (index + 1) * 2, false) / 65535.0;
+            return low + (high - low) * (position - index);
+        }
+
+        if (type.equals("para")) {
+            int function = readShort(curve, 8, false);
+            double[] p = new double[7];
+            for (int i = 0; i < p.length && 12 + i * 4 + 4 <= curve.length; i++) {
+                p[i] = readFixed(curve, 12 + i * 4);
+            }
+            return switch (function) {
+                case 0 -> Math.pow(x, p[0]);
+                case 1 -> x >= -p[2] / p[1] ? Math.pow(p[1] * x + p[2], p[0]) : 0;
+                case 2 -> x >= -p[2] / p[1] ? Math.pow(p[1] * x + p[2], p[0]) + p[3] : p[3];
+                case 3 -> x >= p[4] ? Math.pow(p[1] * x + p[2], p[0]) : p[3] * x;
+                case 4 -> x >= p[4] ? Math.pow(p[1] * x + p[2], p[0]) + p[5] : p[3] * x + p[6];
+                default -> Double.NaN;
+            };
+        }
+
+        return Double.NaN; // unknown curve types never match
+    }
+
+    // ICC s15Fixed16Number
+    private static double readFixed(byte[] data, int offset) {
+        return readInt(data, offset, false) / 65536.0;
+    }
+
+    /**
+     * Reassemble the ICC profile from a JPEG's APP2 segments
+     * @return The profile bytes, or null if the JPEG has none
+     */
+    private static byte[] readJpegIccProfile(byte[] jpeg) {
+        Map<Integer, byte[]> chunks = new TreeMap<>();
+
+        int pos = 2; // skip SOI
+        while (pos + 4 <= jpeg.length && (jpeg[pos] & 0xFF) == 0xFF) {
+            int marker = jpeg[pos + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                break;
+            }
+            int length = readShort(jpeg, pos + 2, false);
+
+            // APP2 "ICC_PROFILE\0", sequence number, chunk count, profile data
+            if (marker == 0xE2 && hasPrefix(jpeg, pos + 4, "ICC_PROFILE\0")) {
+                int sequence = jpeg[pos + 16] & 0xFF;
+                int start = pos + 18;
+                int end = pos + 2 + length;
+                if (end > jpeg.length) {
+                    throw new IllegalArgumentException("Truncated ICC profile segment");
+                }
+                chunks.put(sequence, Arrays.copyOfRange(jpeg, start, end));
+            }
+            pos += 2 + length;
+        }
+
+        if (chunks.isEmpty()) {
+            return null;
+        }
+
+        ByteArrayOutputStream profile = new ByteArrayOutputStream();
+        chunks.values().forEach(profile::writeBytes);
+        return profile.toByteArray();
+    }
+
+    /**
+     * Color and animation chunks of a PNG, which must all precede the image data
+     */
+    private static class PngInfo {
+        boolean animated;
+        boolean srgb;
+        boolean chromaticities;
+        Integer gamma;
+        byte[] iccProfile;
+    }
+
+    private static PngInfo readPngInfo(byte[] png) throws DataFormatException {
+        PngInfo info = new PngInfo();
+
+        int pos = 8; // skip signature
+        while (pos + 8 <= png.length) {
+            int length = readInt(png, pos, false);
+            String type = new String(png, pos + 4, 4, StandardCharsets.ISO_8859_1);
+            int data = pos + 8;
+            if (length < 0 || data + length > png.length) {
+                throw new IllegalArgumentException("Truncated PNG chunk");
+            }
+
+            switch (type) {
+                case "IDAT", "IEND" -> {
+                    return info;
+                }
+                case "acTL" -> info.animated = true;
+                case "sRGB" -> info.srgb = true;
+                case "cHRM" -> info.chromaticities = true;
+                case "gAMA" -> info.gamma = readInt(png, data, false);
+                case "iCCP" -> info.iccProfile = inflateIccp(png, data, length);
+                default -> {
+                }
+            }
+            pos = data + length + 4; // skip CRC
+        }
+        return info;
+    }
+
+    /**
+     * Decompress an iCCP chunk: profile name, NUL, compression method, zlib data
+     */
+    private static byte[] inflateIccp(byte[] png, int data, int length) throws DataFormatException {
+        int nameEnd = data;
+        while (png[nameEnd] != 0) {
+            nameEnd++;
+        }
+        int compressed = nameEnd + 2;
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(png, compressed, data + length - compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated iCCP data");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static boolean hasPrefix(byte[] data, int offset, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, offset, littleEndian);
+        int low = readShort(data, offset + 2, littleEndian);
+        return littleEndian ? (low << 16) | high : (high << 16) | low;
+    }
+}
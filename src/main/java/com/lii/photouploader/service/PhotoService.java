@@ -27,6 +27,8 @@ public class PhotoService {
 
     private final PhotoRepository photoRepository;
     private final S3Service s3Service;
+    private final ImageOptimizationService imageOptimizationService;
+    private final GalleryCacheService galleryCacheService;
 
     // Maximum file size: 10MB
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
@@ -40,9 +42,13 @@ public class PhotoService {
             "image/webp"
     );
 
-    public PhotoService(PhotoRepository photoRepository, S3Service s3Service) {
+    public PhotoService(PhotoRepository photoRepository, S3Service s3Service,
+                        ImageOptimizationService imageOptimizationService,
+                        GalleryCacheService galleryCacheService) {
         this.photoRepository = photoRepository;
         this.s3Service = s3Service;
+        this.imageOptimizationService = imageOptimizationService;
+        this.galleryCacheService = galleryCacheService;
     }
 
 
@@ -62,21 +68,13 @@ public class PhotoService {
             // Upload to S3
             String objectKey = s3Service.uploadFile(file);
 
-            // Generate presigned URL
-            String presignedUrl = s3Service.generatePresignedUrl(objectKey);
-
             // Create database entry
-            Photos photo = new Photos();
-            photo.setObjectKey(objectKey);
-            photo.setDescription(description);
-            photo.setPresignedUrl(presignedUrl);
-            photo.setFileName(file.getOriginalFilename());
-            photo.setFileSize(file.getSize());
-            photo.setContentType(file.getContentType());
-            photo.setUrlExpiryTime(LocalDateTime.now().plusDays(2)); // 2 days as per requirement
+            Photos savedPhoto = savePhoto(objectKey, file.getOriginalFilename(),
+                    file.getSize(), file.getContentType(), description);
 
-            Photos savedPhoto = photoRepository.save(photo);
-            logger.info("Successfully saved photo metadata with ID: {}", savedPhoto.getId());
+            // Strip metadata and re-encode on the worker pool once the row is committed
+            imageOptimizationService.scheduleOptimization(
+                    savedPhoto.getId(), objectKey, file.getContentType());
 
             return convertToDTO(savedPhoto);
 
@@ -86,6 +84,26 @@ public class PhotoService {
         }
     }
 
+    /**
+     * Register a photo whose object has already been stored in S3
+     * Used by resumable uploads once their multipart upload is completed;
+     * repeating the call for the same object returns the existing photo
+     * @param objectKey The S3 object key
+     * @param fileName Original file name
+     * @param fileSize Size of the stored object in bytes
+     * @param contentType MIME type of the stored object
+     * @param description Description of the photo
+     * @return The created PhotoDTO
+     */
+    public PhotoDTO registerUploadedPhoto(String objectKey, String fileName, long fileSize,
+                                          String contentType, String description) {
+        logger.info("Registering uploaded photo: {}", objectKey);
+
+        Photos photo = photoRepository.findByObjectKey(objectKey)
+                .orElseGet(() -> savePhoto(objectKey, fileName, fileSize, contentType, description));
+        return convertToDTO(photo);
+    }
+
     /**
      * Get all photos from the gallery
      * @return List of PhotoDTOs
@@ -93,6 +111,7 @@ public class PhotoService {
     public List<PhotoDTO> getAllPhotos() {
         logger.info("Fetching all photos from gallery");
 
+        galleryCacheService.syncWithOtherTasks();
         List<Photos> photos = photoRepository.findAllByOrderByUploadedAtDesc();
 
         // Check and refresh expired URLs
@@ -114,6 +133,7 @@ public class PhotoService {
     public PhotoDTO getPhotoById(Long id) {
         logger.info("Fetching photo with ID: {}", id);
 
+        galleryCacheService.syncWithOtherTasks();
         return photoRepository.findById(id)
                 .map(this::refreshUrlIfExpired)
                 .map(this::convertToDTO)
@@ -129,16 +149,42 @@ public class PhotoService {
     public void deletePhoto(Long id) {
         logger.info("Deleting photo with ID: {}", id);
 
+        galleryCacheService.syncWithOtherTasks();
         photoRepository.findById(id).ifPresent(photo -> {
             // Delete from S3
             s3Service.deleteFile(photo.getObjectKey());
 
             // Delete from database
             photoRepository.delete(photo);
+            galleryCacheService.markChanged();
             logger.info("Successfully deleted photo with ID: {}", id);
         });
     }
 
+    /**
+     * Create the database entry for a stored S3 object
+     * @return The saved photo entity
+     */
+    private Photos savePhoto(String objectKey, String fileName, long fileSize,
+                             String contentType, String description) {
+        // Generate presigned URL
+        String presignedUrl = s3Service.generatePresignedUrl(objectKey);
+
+        Photos photo = new Photos();
+        photo.setObjectKey(objectKey);
+        photo.setDescription(description);
+        photo.setPresignedUrl(presignedUrl);
+        photo.setFileName(fileName);
+        photo.setFileSize(fileSize);
+        photo.setContentType(contentType);
+        photo.setUrlExpiryTime(LocalDateTime.now().plusDays(2)); // 2 days as per requirement
+
+        Photos savedPhoto = photoRepository.save(photo);
+        galleryCacheService.markChanged();
+        logger.info("Successfully saved photo metadata with ID: {}", savedPhoto.getId());
+        return savedPhoto;
+    }
+
     /**
      * Refresh presigned URL if expired
      * @param photo The photo entity
@@ -152,7 +198,9 @@ public class PhotoService {
             photo.setPresignedUrl(newPresignedUrl);
             photo.setUrlExpiryTime(LocalDateTime.now().plusDays(2));
 
-            return photoRepository.save(photo);
+            Photos savedPhoto = photoRepository.save(photo);
+            galleryCacheService.markChanged();
+            return savedPhoto;
         }
         return photo;
     }
@@ -189,6 +237,7 @@ public class PhotoService {
                 .presignedUrl(photo.getPresignedUrl())
                 .contentType(photo.getContentType())
                 .fileSize(photo.getFileSize())
+                .bytesSaved(photo.getBytesSaved())
                 .uploadedAt(photo.getUploadedAt())
                 .urlExpired(photo.isUrlExpired())
                 .build();
@@ -215,6 +264,10 @@ public class PhotoService {
             }
         }
 
+        if (!expiredPhotos.isEmpty()) {
+            galleryCacheService.markChanged();
+        }
+
         logger.info("Completed batch refresh. Refreshed {} URLs", expiredPhotos.size());
     }
 }
\ No newline at end of file
@@ -0,0 +1,337 @@
+package com.lii.photouploader.service;
+
+import com.lii.photouploader.dto.PhotoDTO;
+import com.lii.photouploader.model.UploadPart;
+import com.lii.photouploader.model.UploadSession;
+import com.lii.photouploader.repository.UploadPartRepository;
+import com.lii.photouploader.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for resumable (tus-style) uploads of large photos
+ * Every chunk is written straight to S3 as one part of a multipart upload,
+ * so at most one chunk per session is held in memory. Part numbers are
+ * claimed in the database before a part is uploaded, so concurrent requests
+ * on different tasks can never write the same part
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    // S3 rejects multipart parts below 5MB, except for the last one
+    public static final long MIN_CHUNK_SIZE = 5 * 1024 * 1024;
+
+    // S3 allows at most 10,000 parts per multipart upload
+    private static final int MAX_PARTS = 10_000;
+
+    // Image types plus the RAW and TIFF formats too large for the form upload
+    private static final List<String> ALLOWED_CONTENT_TYPES = List.of(
+            "image/jpeg",
+            "image/jpg",
+            "image/png",
+            "image/gif",
+            "image/webp",
+            "image/tiff",
+            "image/x-adobe-dng",
+            "image/x-canon-cr2",
+            "image/x-canon-cr3",
+            "image/x-nikon-nef",
+            "image/x-sony-arw",
+            "image/x-fuji-raf",
+            "image/x-olympus-orf",
+            "image/x-panasonic-rw2"
+    );
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadPartRepository uploadPartRepository;
+    private final S3Service s3Service;
+    private final PhotoService photoService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Sessions with a chunk currently in flight on this task
+    private final Set<String> activeSessions = ConcurrentHashMap.newKeySet();
+
+    @Value("${upload.resumable.max-size:5368709120}")
+    private long maxUploadSize;
+
+    @Value("${upload.resumable.max-chunk-size:16777216}")
+    private long maxChunkSize;
+
+    @Value("${upload.resumable.expiry-hours:24}")
+    private long expiryHours;
+
+    public ResumableUploadService(UploadSessionRepository uploadSessionRepository,
+                                  UploadPartRepository uploadPartRepository,
+                                  S3Service s3Service,
+                                  PhotoService photoService,
+                                  PlatformTransactionManager transactionManager) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadPartRepository = uploadPartRepository;
+        this.s3Service = s3Service;
+        this.photoService = photoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Create an upload session and its S3 multipart upload
+     * @param uploadLength Total size of the file in bytes
+     * @param fileName Original file name
+     * @param contentType MIME type of the file
+     * @param description Description of the photo
+     * @return The created session
+     */
+    public UploadSession createSession(long uploadLength, String fileName, String contentType, String description) {
+        logger.info("Creating resumable upload for {} ({} bytes)", fileName, uploadLength);
+
+        if (uploadLength <= 0) {
+            throw new IllegalArgumentException("Upload length must be greater than zero");
+        }
+
+        if (uploadLength > maxUploadSize) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed size of " + maxUploadSize + " bytes");
+        }
+
+        if (uploadLength > maxChunkSize * MAX_PARTS) {
+            throw new IllegalArgumentException("File size exceeds " + MAX_PARTS + " chunks of the maximum chunk size");
+        }
+
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+
+        if (contentType == null || !ALLOWED_CONTENT_TYPES.contains(contentType.toLowerCase())) {
+            throw new IllegalArgumentException("Invalid file type. Only image and camera RAW files are allowed");
+        }
+
+        String objectKey = s3Service.generateObjectKey(fileName);
+        String s3UploadId = s3Service.createMultipartUpload(objectKey, contentType);
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setObjectKey(objectKey);
+        session.setS3UploadId(s3UploadId);
+        session.setFileName(fileName);
+        session.setContentType(contentType);
+        session.setDescription(description);
+        session.setUploadLength(uploadLength);
+        session.setUploadOffset(0L);
+        session.setPartCount(0);
+
+        UploadSession savedSession = uploadSessionRepository.save(session);
+        logger.info("Created upload session {} for key {}", savedSession.getId(), objectKey);
+        return savedSession;
+    }
+
+    /**
+     * Get an upload session by ID
+     * A session whose bytes are all stored but whose photo is not registered
+     * yet is completed here, so Upload-Offset == Upload-Length is only ever
+     * reported for an upload that really is done
+     * @param id Session ID
+     * @return The session or null if not found
+     * @throws RuntimeException if the stored upload could not be completed
+     */
+    public UploadSession getSession(String id) {
+        UploadSession session = uploadSessionRepository.findById(id).orElse(null);
+        if (session != null && session.isComplete() && !session.isRegistered()) {
+            session = completeUpload(session);
+        }
+        return session;
+    }
+
+    /**
+     * Append a chunk at the given offset, completing the upload on the last chunk
+     * @param id Session ID
+     * @param offset Offset the client believes the upload is at
+     * @param chunk The chunk bytes
+     * @return The updated session, or null if not found
+     * @throws IllegalStateException if the offset does not match or another chunk is in flight
+     * @throws RuntimeException if the part or the completed upload could not be stored
+     */
+    public UploadSession appendChunk(String id, long offset, byte[] chunk) {
+        if (!activeSessions.add(id)) {
+            throw new IllegalStateException("Another chunk is already being uploaded for this session");
+        }
+
+        try {
+            UploadSession session = uploadSessionRepository.findById(id).orElse(null);
+            if (session == null) {
+                return null;
+            }
+
+            if (offset != session.getUploadOffset()) {
+                throw new IllegalStateException("Upload offset mismatch: expected " + session.getUploadOffset());
+            }
+
+            long remaining = session.getUploadLength() - session.getUploadOffset();
+            if (chunk.length > remaining) {
+                throw new IllegalArgumentException("Chunk exceeds the declared upload length");
+            }
+
+            if (chunk.length > 0) {
+                if (chunk.length < MIN_CHUNK_SIZE && chunk.length != remaining) {
+                    throw new IllegalArgumentException("Chunks other than the last must be at least " + MIN_CHUNK_SIZE + " bytes");
+                }
+                session = writePart(session, chunk);
+            }
+
+            if (session.isComplete() && !session.isRegistered()) {
+                session = completeUpload(session);
+            }
+            return session;
+
+        } finally {
+            activeSessions.remove(id);
+        }
+    }
+
+    /**
+     * Claim the next part number, upload the part, then record it and advance the offset
+     */
+    private UploadSession writePart(UploadSession session, byte[] chunk) {
+        String id = session.getId();
+        long offset = session.getUploadOffset();
+        int partNumber = session.getPartCount() + 1;
+
+        if (partNumber > MAX_PARTS) {
+            throw new IllegalArgumentException("Upload exceeds " + MAX_PARTS + " chunks");
+        }
+
+        if (uploadSessionRepository.claimPart(id, offset, session.getPartCount(), LocalDateTime.now()) != 1) {
+            throw new IllegalStateException("Upload session was modified concurrently");
+        }
+
+        String etag;
+        try {
+            etag = s3Service.uploadPart(session.getObjectKey(), session.getS3UploadId(), partNumber, chunk);
+        } catch (RuntimeException e) {
+            // Nothing was recorded under this number, so the retry reuses it and overwrites whatever reached S3
+            uploadSessionRepository.releasePart(id, offset, partNumber);
+            throw e;
+        }
+
+        // A part whose offset was taken by another request is never recorded, so it is left out on completion
+        Boolean recorded = transactionTemplate.execute(status -> {
+            if (uploadSessionRepository.advanceOffset(id, offset, offset + chunk.length, LocalDateTime.now()) != 1) {
+                return false;
+            }
+            uploadPartRepository.save(new UploadPart(null, id, partNumber, etag, (long) chunk.length));
+            return true;
+        });
+
+        if (!Boolean.TRUE.equals(recorded)) {
+            throw new IllegalStateException("Upload session was modified concurrently");
+        }
+
+        return uploadSessionRepository.findById(id)
+                .orElseThrow(() -> new IllegalStateException("Upload session disappeared: " + id));
+    }
+
+    /**
+     * Abort an upload and discard its stored parts
+     * A completed upload only loses its tombstone; the photo is kept
+     * @param id Session ID
+     * @return true if the session existed
+     */
+    public boolean terminate(String id) {
+        UploadSession session = uploadSessionRepository.findById(id).orElse(null);
+        if (session == null) {
+            return false;
+        }
+
+        if (!session.isRegistered()) {
+            s3Service.abortMultipartUpload(session.getObjectKey(), session.getS3UploadId());
+        }
+        deleteSession(session);
+        logger.info("Terminated upload session: {}", id);
+        return true;
+    }
+
+    /**
+     * Complete the S3 multipart upload from the recorded parts and register the photo
+     * Every step is safe to repeat, so a failure part way through is retried
+     * by the next PATCH, HEAD or sweep
+     */
+    private UploadSession completeUpload(UploadSession session) {
+        List<UploadPart> parts = uploadPartRepository.findBySessionIdOrderByPartNumber(session.getId());
+
+        long recordedBytes = parts.stream().mapToLong(UploadPart::getPartSize).sum();
+        if (recordedBytes != session.getUploadLength()) {
+            throw new RuntimeException("Failed to complete upload: recorded parts cover " + recordedBytes + " of "
+                    + session.getUploadLength() + " bytes");
+        }
+
+        Map<Integer, String> partETags = parts.stream()
+                .collect(Collectors.toMap(UploadPart::getPartNumber, UploadPart::getEtag));
+        s3Service.completeMultipartUpload(session.getObjectKey(), session.getS3UploadId(), partETags);
+
+        PhotoDTO photo = photoService.registerUploadedPhoto(session.getObjectKey(), session.getFileName(),
+                session.getUploadLength(), session.getContentType(), session.getDescription());
+
+        uploadSessionRepository.markRegistered(session.getId(), photo.getId(), LocalDateTime.now());
+        uploadPartRepository.deleteBySessionId(session.getId());
+        logger.info("Completed upload session {} as photo {}", session.getId(), photo.getId());
+
+        session.setPhotoId(photo.getId());
+        return session;
+    }
+
+    private void deleteSession(UploadSession session) {
+        uploadPartRepository.deleteBySessionId(session.getId());
+        uploadSessionRepository.delete(session);
+    }
+
+    /**
+     * Finish uploads whose completion failed, then expire quiet sessions
+     * Abandoned uploads are aborted; completed ones only lose their tombstone.
+     * Runs on every task; every step is safe to repeat
+     */
+    @Scheduled(fixedDelayString = "${upload.resumable.cleanup-interval-ms:900000}")
+    public void expireAbandonedSessions() {
+        for (UploadSession session : uploadSessionRepository.findPendingCompletion()) {
+            try {
+                completeUpload(session);
+            } catch (Exception e) {
+                logger.error("Failed to complete upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(expiryHours);
+        List<UploadSession> expiredSessions = uploadSessionRepository.findByLastActivityAtBefore(cutoff);
+
+        for (UploadSession session : expiredSessions) {
+            try {
+                if (!session.isRegistered()) {
+                    s3Service.abortMultipartUpload(session.getObjectKey(), session.getS3UploadId());
+                    // Completion may have reached S3 before registration failed for good
+                    if (session.isComplete()) {
+                        s3Service.deleteFile(session.getObjectKey());
+                    }
+                }
+                deleteSession(session);
+                logger.info("Expired upload session: {}", session.getId());
+            } catch (Exception e) {
+                logger.error("Failed to expire upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        if (!expiredSessions.isEmpty()) {
+            logger.info("Expired {} upload sessions", expiredSessions.size());
+        }
+    }
+}
@@ -14,7 +14,11 @@ import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequ
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class S3Service {
@@ -43,13 +47,7 @@ public class S3Service {
      */
     public String uploadFile(MultipartFile file) throws IOException {
         String originalFilename = file.getOriginalFilename();
-        String fileExtension = "";
-
-        if (originalFilename != null && originalFilename.contains(".")) {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        }
-
-        String objectKey = "photos/" + UUID.randomUUID().toString() + fileExtension;
+        String objectKey = generateObjectKey(originalFilename);
 
         logger.info("Uploading file to S3: {} with key: {}", originalFilename, objectKey);
 
@@ -75,6 +73,187 @@ public class S3Service {
         }
     }
 
+    /**
+     * Upload in-memory content to an existing or new S3 object key
+     * @param objectKey The S3 object key to write
+     * @param content The bytes to store
+     * @param contentType The MIME type of the content
+     */
+    public void uploadBytes(String objectKey, byte[] content, String contentType) {
+        logger.info("Uploading {} bytes to S3 with key: {}", content.length, objectKey);
+
+        try {
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .contentType(contentType)
+                    .contentLength((long) content.length)
+                    .build();
+
+            s3Client.putObject(putObjectRequest, RequestBody.fromBytes(content));
+            logger.info("Successfully uploaded bytes to S3: {}", objectKey);
+
+        } catch (S3Exception e) {
+            logger.error("Failed to upload bytes to S3: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to upload bytes to S3: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Generate a new S3 object key for a photo
+     * @param originalFilename The client-supplied file name, used for the extension
+     * @return The object key under the photos/ prefix
+     */
+    public String generateObjectKey(String originalFilename) {
+        String fileExtension = "";
+
+        if (originalFilename != null && originalFilename.contains(".")) {
+            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        }
+
+        return "photos/" + UUID.randomUUID().toString() + fileExtension;
+    }
+
+    /**
+     * Start an S3 multipart upload
+     * @param objectKey The S3 object key to upload to
+     * @param contentType The MIME type of the final object
+     * @return The multipart upload ID
+     */
+    public String createMultipartUpload(String objectKey, String contentType) {
+        logger.info("Creating multipart upload for key: {}", objectKey);
+
+        try {
+            CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .contentType(contentType)
+                    .build();
+
+            return s3Client.createMultipartUpload(request).uploadId();
+
+        } catch (S3Exception e) {
+            logger.error("Failed to create multipart upload: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to create multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Upload one part of a multipart upload
+     * @param objectKey The S3 object key
+     * @param uploadId The multipart upload ID
+     * @param partNumber The 1-based part number
+     * @param content The part bytes
+     * @return The ETag S3 assigned to the part
+     */
+    public String uploadPart(String objectKey, String uploadId, int partNumber, byte[] content) {
+        logger.info("Uploading part {} ({} bytes) for key: {}", partNumber, content.length, objectKey);
+
+        try {
+            UploadPartRequest request = UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength((long) content.length)
+                    .build();
+
+            return s3Client.uploadPart(request, RequestBody.fromBytes(content)).eTag();
+
+        } catch (S3Exception e) {
+            logger.error("Failed to upload part {}: {}", partNumber, e.getMessage(), e);
+            throw new RuntimeException("Failed to upload part: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Complete a multipart upload from recorded parts
+     * Safe to repeat: if the upload was already completed the call succeeds
+     * @param objectKey The S3 object key
+     * @param uploadId The multipart upload ID
+     * @param partETags ETag of each accepted part, keyed by part number
+     */
+    public void completeMultipartUpload(String objectKey, String uploadId, Map<Integer, String> partETags) {
+        logger.info("Completing multipart upload for key: {}", objectKey);
+
+        try {
+            List<CompletedPart> parts = new TreeMap<>(partETags).entrySet().stream()
+                    .map(part -> CompletedPart.builder()
+                            .partNumber(part.getKey())
+                            .eTag(part.getValue())
+                            .build())
+                    .collect(Collectors.toList());
+
+            CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build();
+
+            s3Client.completeMultipartUpload(request);
+            logger.info("Successfully completed multipart upload of {} parts: {}", parts.size(), objectKey);
+
+        } catch (NoSuchUploadException e) {
+            if (!doesObjectExist(objectKey)) {
+                logger.error("Multipart upload for {} no longer exists", objectKey);
+                throw new RuntimeException("Multipart upload no longer exists: " + objectKey, e);
+            }
+            logger.info("Multipart upload already completed for key: {}", objectKey);
+
+        } catch (S3Exception e) {
+            logger.error("Failed to complete multipart upload: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to complete multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Abort a multipart upload, releasing the parts stored so far
+     * @param objectKey The S3 object key
+     * @param uploadId The multipart upload ID
+     */
+    public void abortMultipartUpload(String objectKey, String uploadId) {
+        logger.info("Aborting multipart upload for key: {}", objectKey);
+
+        try {
+            AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .build();
+
+            s3Client.abortMultipartUpload(request);
+
+        } catch (NoSuchUploadException e) {
+            logger.info("Multipart upload already gone for key: {}", objectKey);
+        } catch (S3Exception e) {
+            logger.error("Failed to abort multipart upload: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to abort multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Download an S3 object into memory
+     * @param objectKey The S3 object key
+     * @return The object content
+     */
+    public byte[] downloadFile(String objectKey) {
+        logger.info("Downloading file from S3: {}", objectKey);
+
+        try {
+            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .build();
+
+            return s3Client.getObjectAsBytes(getObjectRequest).asByteArray();
+
+        } catch (S3Exception e) {
+            logger.error("Failed to download file from S3: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to download file from S3: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Generate a presigned URL for an S3 object
      * @param objectKey The S3 object key
@@ -131,6 +310,26 @@ public class S3Service {
         }
     }
 
+    /**
+     * Check that the bucket exists and is reachable with the current credentials
+     * @param timeout Upper bound for the whole call, retries included
+     * @return true if a HEAD on the bucket succeeds in time, false otherwise
+     */
+    public boolean isBucketAccessible(Duration timeout) {
+        try {
+            HeadBucketRequest headBucketRequest = HeadBucketRequest.builder()
+                    .bucket(bucketName)
+                    .overrideConfiguration(config -> config.apiCallTimeout(timeout))
+                    .build();
+
+            s3Client.headBucket(headBucketRequest);
+            return true;
+        } catch (Exception e) {
+            logger.error("Bucket {} is not accessible: {}", bucketName, e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Check if an object exists in S3
      * @param objectKey The S3 object key
@@ -0,0 +1,86 @@
+package com.lii.photouploader.config;
+
+import com.lii.photouploader.service.DependencyHealthMonitor;
+import com.lii.photouploader.service.S3Service;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ReadinessProbeTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @MockBean
+    private DependencyHealthMonitor dependencyHealthMonitor;
+
+    @MockBean
+    private S3Service s3Service;
+
+    @Test
+    void readyWhenDependenciesAreUp() {
+        when(dependencyHealthMonitor.getHealth(anyString())).thenReturn(Health.up().build());
+
+        ResponseEntity<Map> response = restTemplate.getForEntity("/actuator/health/readiness", Map.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("UP", response.getBody().get("status"));
+    }
+
+    @Test
+    void staysReadyWhileDegraded() {
+        when(dependencyHealthMonitor.getHealth(anyString())).thenReturn(Health.up().build());
+        when(dependencyHealthMonitor.getHealth(DependencyHealthMonitor.HIKARI_POOL))
+                .thenReturn(Health.status(DependencyHealthMonitor.DEGRADED).build());
+
+        ResponseEntity<Map> response = restTemplate.getForEntity("/actuator/health/readiness", Map.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("DEGRADED", response.getBody().get("status"));
+    }
+
+    @Test
+    void notReadyBeforeFirstCheck() {
+        when(dependencyHealthMonitor.getHealth(anyString())).thenReturn(Health.up().build());
+        when(dependencyHealthMonitor.getHealth(DependencyHealthMonitor.S3))
+                .thenReturn(Health.unknown().withDetail("reason", "Not checked yet").build());
+
+        ResponseEntity<Map> response = restTemplate.getForEntity("/actuator/health/readiness", Map.class);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("UNKNOWN", response.getBody().get("status"));
+    }
+
+    @Test
+    void notReadyWhenDependencyIsDown() {
+        when(dependencyHealthMonitor.getHealth(anyString())).thenReturn(Health.up().build());
+        when(dependencyHealthMonitor.getHealth(DependencyHealthMonitor.DATABASE)).thenReturn(Health.down().build());
+
+        ResponseEntity<Map> response = restTemplate.getForEntity("/actuator/health/readiness", Map.class);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void livenessIgnoresDependencies() {
+        when(dependencyHealthMonitor.getHealth(anyString())).thenReturn(Health.down().build());
+
+        ResponseEntity<Map> response = restTemplate.getForEntity("/actuator/health/liveness", Map.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+}
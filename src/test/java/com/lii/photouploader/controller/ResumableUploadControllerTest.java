@@ -0,0 +1,158 @@
+package com.lii.photouploader.controller;
+
+import com.lii.photouploader.model.UploadSession;
+import com.lii.photouploader.service.ResumableUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ResumableUploadControllerTest {
+
+    private static final String ID = "session-1";
+    private static final long MAX_CHUNK = 1024;
+
+    private ResumableUploadService service;
+    private ResumableUploadController controller;
+
+    @BeforeEach
+    void setUp() {
+        service = mock(ResumableUploadService.class);
+        controller = new ResumableUploadController(service, MAX_CHUNK, 4);
+    }
+
+    @Test
+    void requiresContentLength() {
+        ResponseEntity<Void> response = controller.appendChunk(ID, 0, new MockHttpServletRequest());
+
+        assertEquals(HttpStatus.LENGTH_REQUIRED, response.getStatusCode());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void rejectsOversizedChunk() {
+        ResponseEntity<Void> response = controller.appendChunk(ID, 0, chunkRequest(new byte[(int) MAX_CHUNK + 1]));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void rejectsShortBody() {
+        MockHttpServletRequest request = new MockHttpServletRequest() {
+            @Override
+            public long getContentLengthLong() {
+                return 100;
+            }
+        };
+        request.setContent(new byte[40]);
+
+        ResponseEntity<Void> response = controller.appendChunk(ID, 0, request);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void reportsOffsetMismatchAsConflict() {
+        when(service.appendChunk(eq(ID), eq(0L), any())).thenThrow(new IllegalStateException("Upload offset mismatch"));
+
+        ResponseEntity<Void> response = controller.appendChunk(ID, 0, chunkRequest(new byte[10]));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void reportsUndersizedMiddleChunkAsBadRequest() {
+        when(service.appendChunk(eq(ID), eq(0L), any())).thenThrow(new IllegalArgumentException("Chunk too small"));
+
+        ResponseEntity<Void> response = controller.appendChunk(ID, 0, chunkRequest(new byte[10]));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void reportsFullOffsetOnCompletion() {
+        when(service.appendChunk(eq(ID), eq(0L), any())).thenReturn(session(10, 10));
+
+        ResponseEntity<Void> response = controller.appendChunk(ID, 0, chunkRequest(new byte[10]));
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals("10", response.getHeaders().getFirst("Upload-Offset"));
+    }
+
+    @Test
+    void rejectsChunkWhenBusy() {
+        controller = new ResumableUploadController(service, MAX_CHUNK, 0);
+
+        ResponseEntity<Void> response = controller.appendChunk(ID, 0, chunkRequest(new byte[10]));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst("Retry-After"));
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void releasesPermitAfterFailedChunk() {
+        controller = new ResumableUploadController(service, MAX_CHUNK, 1);
+        when(service.appendChunk(eq(ID), eq(0L), any()))
+                .thenThrow(new IllegalStateException("Upload offset mismatch"))
+                .thenReturn(session(10, 10));
+
+        controller.appendChunk(ID, 0, chunkRequest(new byte[10]));
+        ResponseEntity<Void> response = controller.appendChunk(ID, 0, chunkRequest(new byte[10]));
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+    }
+
+    @Test
+    void headReportsOffset() {
+        when(service.getSession(ID)).thenReturn(session(10, 10));
+
+        ResponseEntity<Void> response = controller.getUploadOffset(ID);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("10", response.getHeaders().getFirst("Upload-Offset"));
+        assertEquals("10", response.getHeaders().getFirst("Upload-Length"));
+    }
+
+    @Test
+    void reportsStorageFailureAsServerError() {
+        when(service.appendChunk(eq(ID), eq(0L), any())).thenThrow(new RuntimeException("Failed to upload part"));
+
+        ResponseEntity<Void> response = controller.appendChunk(ID, 0, chunkRequest(new byte[10]));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst("Upload-Offset"));
+    }
+
+    @Test
+    void headFailsWhenCompletionFails() {
+        when(service.getSession(ID)).thenThrow(new RuntimeException("Failed to complete upload"));
+
+        ResponseEntity<Void> response = controller.getUploadOffset(ID);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst("Upload-Offset"));
+    }
+
+    private static MockHttpServletRequest chunkRequest(byte[] content) {
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/uploads/" + ID);
+        request.setContentType("application/offset+octet-stream");
+        request.setContent(content);
+        return request;
+    }
+
+    private static UploadSession session(long length, long offset) {
+        UploadSession session = new UploadSession();
+        session.setId(ID);
+        session.setUploadLength(length);
+        session.setUploadOffset(offset);
+        return session;
+    }
+}
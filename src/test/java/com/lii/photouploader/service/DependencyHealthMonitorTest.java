@@ -0,0 +1,271 @@
+package com.lii.photouploader.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DependencyHealthMonitorTest {
+
+    private static final long INTERVAL_MS = 15_000;
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HikariDataSource dataSource;
+    private HikariPoolMXBean pool;
+    private S3Service s3Service;
+    private ThreadPoolTaskExecutor executor;
+    private DependencyHealthMonitor monitor;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = mock(HikariDataSource.class);
+        pool = mock(HikariPoolMXBean.class);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(dataSource);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        when(dataSource.getMaximumPoolSize()).thenReturn(5);
+
+        s3Service = mock(S3Service.class);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.initialize();
+
+        monitor = new DependencyHealthMonitor(dataSource, s3Service, executor);
+        ReflectionTestUtils.setField(monitor, "enabled", true);
+        ReflectionTestUtils.setField(monitor, "intervalMs", INTERVAL_MS);
+        ReflectionTestUtils.setField(monitor, "dbTimeoutSeconds", 1);
+        ReflectionTestUtils.setField(monitor, "s3TimeoutMs", 2000L);
+        ReflectionTestUtils.setField(monitor, "queueDegradedRatio", 0.8);
+        setClock(NOW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        monitor.stop();
+        executor.shutdown();
+    }
+
+    @Test
+    void reportsUnknownBeforeFirstCheck() {
+        assertEquals(Status.UNKNOWN, monitor.getHealth(DependencyHealthMonitor.S3).getStatus());
+    }
+
+    @Test
+    void reportsDownOnceResultIsOlderThanThreeIntervals() {
+        when(s3Service.isBucketAccessible(any())).thenReturn(true);
+        monitor.runCheck(DependencyHealthMonitor.S3);
+
+        setClock(NOW.plusMillis(INTERVAL_MS * 3));
+        assertEquals(Status.UP, monitor.getHealth(DependencyHealthMonitor.S3).getStatus());
+
+        setClock(NOW.plusMillis(INTERVAL_MS * 3 + 1));
+        Health health = monitor.getHealth(DependencyHealthMonitor.S3);
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("Health check stalled", health.getDetails().get("reason"));
+    }
+
+    @Test
+    void tracksStalenessPerCheck() {
+        when(s3Service.isBucketAccessible(any())).thenReturn(true);
+        monitor.runCheck(DependencyHealthMonitor.S3);
+        setClock(NOW.plusMillis(INTERVAL_MS * 4));
+        monitor.runCheck(DependencyHealthMonitor.UPLOAD_QUEUE);
+
+        assertEquals(Status.DOWN, monitor.getHealth(DependencyHealthMonitor.S3).getStatus());
+        assertEquals(Status.UP, monitor.getHealth(DependencyHealthMonitor.UPLOAD_QUEUE).getStatus());
+    }
+
+    @Test
+    void reportsFailingCheckAsDown() {
+        when(s3Service.isBucketAccessible(any())).thenThrow(new RuntimeException("boom"));
+
+        monitor.runCheck(DependencyHealthMonitor.S3);
+
+        assertEquals(Status.DOWN, monitor.getHealth(DependencyHealthMonitor.S3).getStatus());
+    }
+
+    @Test
+    void reportsValidConnectionAsUp() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(1)).thenReturn(true);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        monitor.runCheck(DependencyHealthMonitor.DATABASE);
+
+        assertEquals(Status.UP, monitor.getHealth(DependencyHealthMonitor.DATABASE).getStatus());
+        verify(connection).close();
+    }
+
+    @Test
+    void cancelsBorrowThatTimesOut() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            throw new SQLException("Interrupted while waiting for a connection");
+        });
+        when(pool.getActiveConnections()).thenReturn(1);
+
+        monitor.runCheck(DependencyHealthMonitor.DATABASE);
+
+        Health health = monitor.getHealth(DependencyHealthMonitor.DATABASE);
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("Timed out after 1s", health.getDetails().get("reason"));
+        assertTrue(waitFor(interrupted));
+    }
+
+    @Test
+    void reportsBorrowTimeoutOnSaturatedPoolAsDegraded() throws Exception {
+        blockBorrowsUntilReleased();
+        when(pool.getActiveConnections()).thenReturn(5);
+
+        monitor.runCheck(DependencyHealthMonitor.DATABASE);
+
+        assertEquals(DependencyHealthMonitor.DEGRADED, monitor.getHealth(DependencyHealthMonitor.DATABASE).getStatus());
+    }
+
+    @Test
+    void reportsBorrowTimeoutWithOtherWaitersAsDegraded() throws Exception {
+        blockBorrowsUntilReleased();
+        when(pool.getActiveConnections()).thenReturn(4);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(3);
+
+        monitor.runCheck(DependencyHealthMonitor.DATABASE);
+
+        assertEquals(DependencyHealthMonitor.DEGRADED, monitor.getHealth(DependencyHealthMonitor.DATABASE).getStatus());
+    }
+
+    @Test
+    void doesNotStackBorrowsWhileOneIsStuck() throws Exception {
+        blockBorrowsUntilReleased();
+
+        monitor.runCheck(DependencyHealthMonitor.DATABASE);
+        monitor.runCheck(DependencyHealthMonitor.DATABASE);
+
+        Health health = monitor.getHealth(DependencyHealthMonitor.DATABASE);
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("Previous connection check still running", health.getDetails().get("reason"));
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    void reportsIdlePoolAsUp() {
+        when(pool.getActiveConnections()).thenReturn(4);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(0);
+
+        monitor.runCheck(DependencyHealthMonitor.HIKARI_POOL);
+
+        assertEquals(Status.UP, monitor.getHealth(DependencyHealthMonitor.HIKARI_POOL).getStatus());
+    }
+
+    @Test
+    void reportsFullPoolAsDegraded() {
+        when(pool.getActiveConnections()).thenReturn(5);
+
+        monitor.runCheck(DependencyHealthMonitor.HIKARI_POOL);
+
+        assertEquals(DependencyHealthMonitor.DEGRADED, monitor.getHealth(DependencyHealthMonitor.HIKARI_POOL).getStatus());
+    }
+
+    @Test
+    void reportsWaitingThreadsAsDegraded() {
+        when(pool.getActiveConnections()).thenReturn(2);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(1);
+
+        monitor.runCheck(DependencyHealthMonitor.HIKARI_POOL);
+
+        assertEquals(DependencyHealthMonitor.DEGRADED, monitor.getHealth(DependencyHealthMonitor.HIKARI_POOL).getStatus());
+    }
+
+    @Test
+    void reportsQueueBelowRatioAsUp() {
+        fillQueue(7);
+
+        monitor.runCheck(DependencyHealthMonitor.UPLOAD_QUEUE);
+
+        Health health = monitor.getHealth(DependencyHealthMonitor.UPLOAD_QUEUE);
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(7, health.getDetails().get("depth"));
+        assertEquals(10, health.getDetails().get("capacity"));
+    }
+
+    @Test
+    void reportsQueueAtRatioAsDegraded() {
+        fillQueue(8);
+
+        monitor.runCheck(DependencyHealthMonitor.UPLOAD_QUEUE);
+
+        assertEquals(DependencyHealthMonitor.DEGRADED, monitor.getHealth(DependencyHealthMonitor.UPLOAD_QUEUE).getStatus());
+    }
+
+    private void setClock(Instant instant) {
+        ReflectionTestUtils.setField(monitor, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    /**
+     * Make every connection borrow hang, ignoring interrupts, until the test ends
+     */
+    private void blockBorrowsUntilReleased() throws SQLException {
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                    // keep holding the probe thread like a borrow that ignores interrupts
+                }
+            }
+            throw new SQLException("Released");
+        });
+    }
+
+    /**
+     * Occupy the single worker, then queue the given number of tasks behind it
+     */
+    private void fillQueue(int depth) {
+        Runnable blocker = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.execute(blocker);
+        for (int i = 0; i < depth; i++) {
+            executor.execute(blocker);
+        }
+    }
+
+    private static boolean waitFor(AtomicBoolean flag) throws InterruptedException {
+        for (int i = 0; i < 50 && !flag.get(); i++) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        return flag.get();
+    }
+}
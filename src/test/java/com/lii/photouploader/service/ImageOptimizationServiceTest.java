@@ -0,0 +1,169 @@
+package com.lii.photouploader.service;
+
+import com.lii.photouploader.repository.PhotoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImageOptimizationServiceTest {
+
+    private static final Long PHOTO_ID = 7L;
+    private static final String KEY = "photos/key.jpg";
+
+    private PhotoRepository photoRepository;
+    private S3Service s3Service;
+    private GalleryCacheService galleryCacheService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository = mock(PhotoRepository.class);
+        s3Service = mock(S3Service.class);
+        galleryCacheService = mock(GalleryCacheService.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void submitsOnlyAfterCommit() {
+        TaskExecutor executor = mock(TaskExecutor.class);
+        ImageOptimizationService service = service(executor);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.scheduleOptimization(PHOTO_ID, KEY, "image/jpeg");
+
+        verifyNoInteractions(executor);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(executor).execute(any());
+    }
+
+    @Test
+    void dropsTaskWhenRolledBack() {
+        TaskExecutor executor = mock(TaskExecutor.class);
+        ImageOptimizationService service = service(executor);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.scheduleOptimization(PHOTO_ID, KEY, "image/jpeg");
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    void keepsOriginalWhenQueueIsFull() {
+        TaskExecutor executor = mock(TaskExecutor.class);
+        doThrow(new TaskRejectedException("full")).when(executor).execute(any());
+
+        assertDoesNotThrow(() -> service(executor).scheduleOptimization(PHOTO_ID, KEY, "image/jpeg"));
+        verifyNoInteractions(s3Service, photoRepository);
+    }
+
+    @Test
+    void skipsUnsupportedTypes() {
+        TaskExecutor executor = mock(TaskExecutor.class);
+
+        service(executor).scheduleOptimization(PHOTO_ID, KEY, "image/gif");
+
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    void replacesObjectAndRecordsSavings() throws IOException {
+        byte[] original = jpeg();
+        when(s3Service.downloadFile(KEY)).thenReturn(original);
+        when(photoRepository.existsById(PHOTO_ID)).thenReturn(true);
+        when(photoRepository.updateOptimizedSize(eq(PHOTO_ID), anyLong(), anyLong())).thenReturn(1);
+
+        service(new SyncTaskExecutor()).scheduleOptimization(PHOTO_ID, KEY, "image/jpeg");
+
+        verify(s3Service).uploadBytes(eq(KEY), any(), eq("image/jpeg"));
+        verify(photoRepository).updateOptimizedSize(eq(PHOTO_ID), longThat(size -> size < original.length),
+                longThat(saved -> saved > 0));
+        verify(s3Service, never()).deleteFile(any());
+        verify(galleryCacheService).markChanged();
+        assertTrue(meterRegistry.counter("photos.optimization.bytes.saved").count() > 0);
+    }
+
+    @Test
+    void skipsUploadWhenPhotoDeletedBeforeUpload() throws IOException {
+        when(s3Service.downloadFile(KEY)).thenReturn(jpeg());
+        when(photoRepository.existsById(PHOTO_ID)).thenReturn(false);
+
+        service(new SyncTaskExecutor()).scheduleOptimization(PHOTO_ID, KEY, "image/jpeg");
+
+        verify(s3Service, never()).uploadBytes(any(), any(), any());
+        verify(photoRepository, never()).updateOptimizedSize(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void removesReuploadedObjectWhenPhotoDeletedDuringOptimization() throws IOException {
+        when(s3Service.downloadFile(KEY)).thenReturn(jpeg());
+        when(photoRepository.existsById(PHOTO_ID)).thenReturn(true);
+        when(photoRepository.updateOptimizedSize(eq(PHOTO_ID), anyLong(), anyLong())).thenReturn(0);
+
+        service(new SyncTaskExecutor()).scheduleOptimization(PHOTO_ID, KEY, "image/jpeg");
+
+        verify(s3Service).uploadBytes(eq(KEY), any(), any());
+        verify(s3Service).deleteFile(KEY);
+        verify(galleryCacheService, never()).markChanged();
+        assertEquals(0.0, meterRegistry.counter("photos.optimization.bytes.saved").count());
+    }
+
+    private ImageOptimizationService service(TaskExecutor executor) {
+        ImageOptimizationService service = new ImageOptimizationService(photoRepository, s3Service, galleryCacheService, executor,
+                meterRegistry, 0.85f, 16_000_000);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        return service;
+    }
+
+    private static byte[] jpeg() throws IOException {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(1.0f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
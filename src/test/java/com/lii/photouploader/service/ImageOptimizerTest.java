@@ -0,0 +1,395 @@
+package com.lii.photouploader.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageOptimizerTest {
+
+    private final ImageOptimizer optimizer = new ImageOptimizer(0.85f, 16_000_000);
+
+    @Test
+    void readsBigEndianExifOrientation() throws IOException {
+        byte[] jpeg = withSegment(jpeg(1.0f), exifSegment(false, 6));
+
+        assertEquals(6, ImageOptimizer.readExifOrientation(jpeg));
+    }
+
+    @Test
+    void readsLittleEndianExifOrientation() throws IOException {
+        byte[] jpeg = withSegment(jpeg(1.0f), exifSegment(true, 8));
+
+        assertEquals(8, ImageOptimizer.readExifOrientation(jpeg));
+    }
+
+    @Test
+    void skipsXmpSegmentBeforeExif() throws IOException {
+        byte[] xmp = segment(0xE1, "http://ns.adobe.com/xap/1.0/\0<x:xmpmeta/>".getBytes(StandardCharsets.US_ASCII));
+        byte[] jpeg = withSegment(withSegment(jpeg(1.0f), exifSegment(false, 3)), xmp);
+
+        assertEquals(3, ImageOptimizer.readExifOrientation(jpeg));
+    }
+
+    @Test
+    void reportsDefaultOrientationWithoutExif() throws IOException {
+        assertEquals(1, ImageOptimizer.readExifOrientation(jpeg(1.0f)));
+    }
+
+    @Test
+    void reportsMalformedForTruncatedExif() throws IOException {
+        byte[] exif = exifSegment(false, 6);
+        byte[] full = withSegment(jpeg(1.0f), exif);
+        byte[] truncated = new byte[2 + exif.length - 8];
+        System.arraycopy(full, 0, truncated, 0, truncated.length);
+
+        assertEquals(-1, ImageOptimizer.readExifOrientation(truncated));
+    }
+
+    @Test
+    void keepsOriginalWhenReencodeIsLarger() throws IOException {
+        byte[] original = jpeg(0.2f);
+
+        assertNull(optimizer.optimize(original, "image/jpeg"));
+    }
+
+    @Test
+    void shrinksHighQualityJpeg() throws IOException {
+        byte[] original = jpeg(1.0f);
+
+        byte[] optimized = optimizer.optimize(original, "image/jpeg");
+
+        assertNotNull(optimized);
+        assertTrue(optimized.length < original.length);
+    }
+
+    @Test
+    void keepsRotatedJpeg() throws IOException {
+        byte[] original = withSegment(jpeg(1.0f), exifSegment(false, 6));
+
+        assertNull(optimizer.optimize(original, "image/jpeg"));
+    }
+
+    @Test
+    void keepsJpegWithNonSrgbProfile() throws IOException {
+        byte[] original = withSegment(jpeg(1.0f), iccSegment(ColorSpace.CS_LINEAR_RGB));
+
+        assertTrue(ImageOptimizer.hasNonSrgbColorProfile(original, true));
+        assertNull(optimizer.optimize(original, "image/jpeg"));
+    }
+
+    @Test
+    void stripsSrgbProfileFromJpeg() throws IOException {
+        byte[] original = withSegment(jpeg(1.0f), iccSegment(ColorSpace.CS_sRGB));
+
+        assertFalse(ImageOptimizer.hasNonSrgbColorProfile(original, true));
+        assertNotNull(optimizer.optimize(original, "image/jpeg"));
+    }
+
+    @Test
+    void keepsPngWithNonSrgbGamma() throws IOException {
+        byte[] png = withPngChunk(png(), "gAMA", new byte[]{0, 1, (byte) 0x86, (byte) 0xA0}); // 100000
+
+        assertTrue(ImageOptimizer.hasNonSrgbColorProfile(png, false));
+    }
+
+    @Test
+    void keepsPngWithNonSrgbIccProfile() throws IOException {
+        byte[] png = withPngChunk(png(), "iCCP", iccpData(ColorSpace.CS_LINEAR_RGB));
+
+        assertTrue(ImageOptimizer.hasNonSrgbColorProfile(png, false));
+        assertNull(optimizer.optimize(png, "image/png"));
+    }
+
+    @Test
+    void acceptsPngWithSrgbIccProfile() throws IOException {
+        byte[] png = withPngChunk(png(), "iCCP", iccpData(ColorSpace.CS_sRGB));
+
+        assertFalse(ImageOptimizer.hasNonSrgbColorProfile(png, false));
+    }
+
+    @Test
+    void acceptsPngWithSrgbChunk() throws IOException {
+        byte[] png = withPngChunk(png(), "sRGB", new byte[]{0});
+
+        assertFalse(ImageOptimizer.hasNonSrgbColorProfile(png, false));
+    }
+
+    @Test
+    void keepsAnimatedPng() throws IOException {
+        byte[] actl = {0, 0, 0, 2, 0, 0, 0, 0}; // two frames, loop forever
+        byte[] png = withPngChunk(png(noise(), 1.0f), "acTL", actl);
+
+        assertTrue(ImageOptimizer.isAnimatedPng(png));
+        assertNull(optimizer.optimize(png, "image/png"));
+    }
+
+    @Test
+    void keepsPixelsOf16BitGrayPng() throws IOException {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_USHORT_GRAY);
+        fillGradient(image.getRaster(), 0xFFFF);
+
+        assertLosslessRoundTrip(image);
+    }
+
+    @Test
+    void keepsPixelsOf16BitRgbPng() throws IOException {
+        ComponentColorModel model = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+                new int[]{16, 16, 16}, false, false, Transparency.OPAQUE, DataBuffer.TYPE_USHORT);
+        BufferedImage image = new BufferedImage(model, model.createCompatibleWritableRaster(64, 64), false, null);
+        fillGradient(image.getRaster(), 0xFFFF);
+
+        assertLosslessRoundTrip(image);
+    }
+
+    @Test
+    void keepsPixelsOfPalettePngWithTransparency() throws IOException {
+        byte[] red = new byte[16];
+        byte[] green = new byte[16];
+        byte[] blue = new byte[16];
+        byte[] alpha = new byte[16];
+        for (int i = 0; i < 16; i++) {
+            red[i] = (byte) (i * 16);
+            green[i] = (byte) (255 - i * 16);
+            blue[i] = (byte) (i * 7);
+            alpha[i] = (byte) (i * 17);
+        }
+        IndexColorModel model = new IndexColorModel(4, 16, red, green, blue, alpha);
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_BYTE_BINARY, model);
+        fillGradient(image.getRaster(), 15);
+
+        assertLosslessRoundTrip(image);
+    }
+
+    @Test
+    void keepsPixelsOfGrayAlphaPng() throws IOException {
+        ComponentColorModel model = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_GRAY),
+                true, false, Transparency.TRANSLUCENT, DataBuffer.TYPE_BYTE);
+        BufferedImage image = new BufferedImage(model, model.createCompatibleWritableRaster(64, 64), false, null);
+        fillGradient(image.getRaster(), 0xFF);
+
+        assertLosslessRoundTrip(image);
+    }
+
+    /**
+     * Store the image uncompressed so the re-encode shrinks it, then compare every sample
+     */
+    private void assertLosslessRoundTrip(BufferedImage image) throws IOException {
+        byte[] original = png(image, 1.0f);
+
+        byte[] optimized = optimizer.optimize(original, "image/png");
+
+        assertNotNull(optimized);
+        assertTrue(optimized.length < original.length);
+
+        BufferedImage before = ImageIO.read(new ByteArrayInputStream(original));
+        BufferedImage after = ImageIO.read(new ByteArrayInputStream(optimized));
+        assertEquals(before.getWidth(), after.getWidth());
+        assertEquals(before.getHeight(), after.getHeight());
+        assertEquals(before.getColorModel().hasAlpha(), after.getColorModel().hasAlpha());
+
+        Raster expected = before.getRaster();
+        Raster actual = after.getRaster();
+        assertArrayEquals(expected.getSampleModel().getSampleSize(), actual.getSampleModel().getSampleSize());
+        for (int y = 0; y < before.getHeight(); y++) {
+            for (int x = 0; x < before.getWidth(); x++) {
+                assertEquals(before.getRGB(x, y), after.getRGB(x, y));
+                assertArrayEquals(expected.getPixel(x, y, (int[]) null), actual.getPixel(x, y, (int[]) null));
+            }
+        }
+    }
+
+    /**
+     * Gradients spanning the full sample range; regular enough for deflate to shrink
+     */
+    private static void fillGradient(WritableRaster raster, int maxSample) {
+        for (int y = 0; y < raster.getHeight(); y++) {
+            for (int x = 0; x < raster.getWidth(); x++) {
+                for (int band = 0; band < raster.getNumBands(); band++) {
+                    long value = (long) (x + band * 7) * maxSample / (raster.getWidth() - 1) + y;
+                    raster.setSample(x, y, band, (int) (value % (maxSample + 1)));
+                }
+            }
+        }
+    }
+
+    private static BufferedImage noise() {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        return image;
+    }
+
+    private static byte[] jpeg(float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(noise(), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(noise(), "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode a PNG at the given compression quality; 1.0 stores the data uncompressed
+     */
+    private static byte[] png(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Insert a segment right after the JPEG SOI marker
+     */
+    private static byte[] withSegment(byte[] jpeg, byte[] segment) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.writeBytes(segment);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    private static byte[] segment(int marker, byte[] payload) {
+        int length = payload.length + 2;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(marker);
+        out.write(length >> 8);
+        out.write(length);
+        out.writeBytes(payload);
+        return out.toByteArray();
+    }
+
+    /**
+     * APP1 EXIF segment holding a single IFD0 entry: Orientation (SHORT)
+     */
+    private static byte[] exifSegment(boolean littleEndian, int orientation) {
+        ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        tiff.writeBytes("Exif\0\0".getBytes(StandardCharsets.US_ASCII));
+        tiff.writeBytes(littleEndian ? new byte[]{'I', 'I'} : new byte[]{'M', 'M'});
+        writeShort(tiff, 42, littleEndian);
+        writeInt(tiff, 8, littleEndian);   // IFD0 offset
+        writeShort(tiff, 1, littleEndian); // entry count
+        writeShort(tiff, 0x0112, littleEndian);
+        writeShort(tiff, 3, littleEndian);
+        writeInt(tiff, 1, littleEndian);
+        writeShort(tiff, orientation, littleEndian);
+        writeShort(tiff, 0, littleEndian);
+        writeInt(tiff, 0, littleEndian);   // no next IFD
+        return segment(0xE1, tiff.toByteArray());
+    }
+
+    private static byte[] iccSegment(int colorSpace) {
+        byte[] profile = ICC_Profile.getInstance(colorSpace).getData();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        payload.writeBytes("ICC_PROFILE\0".getBytes(StandardCharsets.US_ASCII));
+        payload.write(1); // sequence number
+        payload.write(1); // chunk count
+        payload.writeBytes(profile);
+        return segment(0xE2, payload.toByteArray());
+    }
+
+    /**
+     * iCCP chunk data: profile name, NUL, compression method 0, zlib stream
+     */
+    private static byte[] iccpData(int colorSpace) {
+        byte[] profile = ICC_Profile.getInstance(colorSpace).getData();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("icc\0".getBytes(StandardCharsets.US_ASCII));
+        out.write(0);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(profile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Insert a chunk right after the PNG IHDR chunk
+     */
+    private static byte[] withPngChunk(byte[] png, String type, byte[] data) {
+        int afterIhdr = 8 + 8 + 13 + 4;
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(png, 0, afterIhdr);
+        writeInt(out, data.length, false);
+        out.writeBytes(typeBytes);
+        out.writeBytes(data);
+        writeInt(out, (int) crc.getValue(), false);
+        out.write(png, afterIhdr, png.length - afterIhdr);
+        return out.toByteArray();
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value, boolean littleEndian) {
+        if (littleEndian) {
+            out.write(value);
+            out.write(value >> 8);
+        } else {
+            out.write(value >> 8);
+            out.write(value);
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value, boolean littleEndian) {
+        if (littleEndian) {
+            writeShort(out, value, true);
+            writeShort(out, value >>> 16, true);
+        } else {
+            writeShort(out, value >>> 16, false);
+            writeShort(out, value, false);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.lii.photouploader.service;
+
+import com.lii.photouploader.dto.PhotoDTO;
+import com.lii.photouploader.repository.CacheGenerationRepository;
+import com.lii.photouploader.repository.PhotoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PhotoCacheTest {
+
+    @Autowired
+    private PhotoService photoService;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private CacheGenerationRepository cacheGenerationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private S3Service s3Service;
+
+    @MockBean
+    private ImageOptimizationService imageOptimizationService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository.deleteAll();
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        when(s3Service.uploadFile(any())).thenAnswer(invocation -> "photos/" + UUID.randomUUID() + ".jpg");
+        when(s3Service.generatePresignedUrl(any())).thenReturn("https://example.com/photo.jpg");
+    }
+
+    @Test
+    void servesRepeatedGalleryReadsFromCache() throws IOException {
+        upload("a.jpg");
+        upload("b.jpg");
+        photoService.getAllPhotos();
+        statistics.clear();
+
+        List<PhotoDTO> photos = photoService.getAllPhotos();
+
+        assertEquals(2, photos.size());
+        assertEquals(1, statistics.getQueryRegionStatistics("gallery").getHitCount());
+        assertEquals(0, statistics.getQueryRegionStatistics("gallery").getMissCount());
+        assertEquals(2, statistics.getDomainDataRegionStatistics("photos").getHitCount());
+    }
+
+    @Test
+    void uploadInvalidatesGallery() throws IOException {
+        upload("a.jpg");
+        photoService.getAllPhotos();
+        photoService.getAllPhotos();
+
+        upload("b.jpg");
+
+        assertEquals(2, photoService.getAllPhotos().size());
+    }
+
+    @Test
+    void deleteInvalidatesGallery() throws IOException {
+        PhotoDTO first = upload("a.jpg");
+        upload("b.jpg");
+        photoService.getAllPhotos();
+        photoService.getAllPhotos();
+
+        photoService.deletePhoto(first.getId());
+
+        List<PhotoDTO> photos = photoService.getAllPhotos();
+        assertEquals(1, photos.size());
+        assertNotEquals(first.getId(), photos.get(0).getId());
+    }
+
+    @Test
+    void writeFromAnotherTaskInvalidatesGalleryOnceGenerationChanges() throws IOException {
+        upload("a.jpg");
+        photoService.getAllPhotos();
+
+        // A write from another task never touches this task's Hibernate caches
+        jdbcTemplate.update("INSERT INTO photos (object_key, file_name, uploaded_at, url_expiry_time) VALUES (?, ?, ?, ?)",
+                "photos/other-task.jpg", "other.jpg", LocalDateTime.now(), LocalDateTime.now().plusDays(2));
+        assertEquals(1, photoService.getAllPhotos().size());
+
+        cacheGenerationRepository.increment(GalleryCacheService.PHOTOS);
+
+        assertEquals(2, photoService.getAllPhotos().size());
+    }
+
+    private PhotoDTO upload(String fileName) throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", fileName, "image/jpeg", new byte[]{1, 2, 3});
+        return photoService.uploadPhoto(file, "test");
+    }
+}
@@ -0,0 +1,216 @@
+package com.lii.photouploader.service;
+
+import com.lii.photouploader.dto.PhotoDTO;
+import com.lii.photouploader.model.UploadPart;
+import com.lii.photouploader.model.UploadSession;
+import com.lii.photouploader.repository.UploadPartRepository;
+import com.lii.photouploader.repository.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ResumableUploadServiceTest {
+
+    private static final String ID = "session-1";
+    private static final int MIN = (int) ResumableUploadService.MIN_CHUNK_SIZE;
+
+    private UploadSessionRepository sessionRepository;
+    private UploadPartRepository partRepository;
+    private S3Service s3Service;
+    private PhotoService photoService;
+    private ResumableUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository = mock(UploadSessionRepository.class);
+        partRepository = mock(UploadPartRepository.class);
+        s3Service = mock(S3Service.class);
+        photoService = mock(PhotoService.class);
+        service = new ResumableUploadService(sessionRepository, partRepository, s3Service, photoService,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void rejectsOffsetMismatch() {
+        stubSession(session(MIN * 2L, MIN, 1, null));
+
+        assertThrows(IllegalStateException.class, () -> service.appendChunk(ID, 0, new byte[MIN]));
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void rejectsUndersizedMiddleChunk() {
+        stubSession(session(MIN * 2L, 0, 0, null));
+
+        assertThrows(IllegalArgumentException.class, () -> service.appendChunk(ID, 0, new byte[MIN - 1]));
+        verify(sessionRepository, never()).claimPart(any(), anyLong(), anyInt(), any());
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void rejectsChunkPastDeclaredLength() {
+        stubSession(session(10, 0, 0, null));
+
+        assertThrows(IllegalArgumentException.class, () -> service.appendChunk(ID, 0, new byte[11]));
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void doesNotUploadPartWhenClaimIsLost() {
+        stubSession(session(MIN * 2L, 0, 0, null));
+        when(sessionRepository.claimPart(eq(ID), eq(0L), eq(0), any())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> service.appendChunk(ID, 0, new byte[MIN]));
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void doesNotRecordPartWhenOffsetWasTaken() {
+        stubSession(session(MIN * 2L, 0, 0, null));
+        when(sessionRepository.claimPart(eq(ID), eq(0L), eq(0), any())).thenReturn(1);
+        when(s3Service.uploadPart(any(), any(), eq(1), any())).thenReturn("etag-1");
+        when(sessionRepository.advanceOffset(eq(ID), eq(0L), eq((long) MIN), any())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> service.appendChunk(ID, 0, new byte[MIN]));
+        verify(partRepository, never()).save(any());
+    }
+
+    @Test
+    void recordsMiddleChunk() {
+        when(sessionRepository.findById(ID)).thenReturn(
+                Optional.of(session(MIN * 2L, 0, 0, null)),
+                Optional.of(session(MIN * 2L, MIN, 1, null)));
+        when(sessionRepository.claimPart(eq(ID), eq(0L), eq(0), any())).thenReturn(1);
+        when(s3Service.uploadPart(any(), any(), eq(1), any())).thenReturn("etag-1");
+        when(sessionRepository.advanceOffset(eq(ID), eq(0L), eq((long) MIN), any())).thenReturn(1);
+
+        UploadSession result = service.appendChunk(ID, 0, new byte[MIN]);
+
+        assertEquals(MIN, result.getUploadOffset());
+        verify(partRepository).save(new UploadPart(null, ID, 1, "etag-1", (long) MIN));
+        verify(s3Service, never()).completeMultipartUpload(any(), any(), any());
+    }
+
+    @Test
+    void completesFromRecordedPartsOnLastChunk() {
+        long length = MIN + 10L;
+        when(sessionRepository.findById(ID)).thenReturn(
+                Optional.of(session(length, MIN, 1, null)),
+                Optional.of(session(length, length, 2, null)));
+        when(sessionRepository.claimPart(eq(ID), eq((long) MIN), eq(1), any())).thenReturn(1);
+        when(s3Service.uploadPart(any(), any(), eq(2), any())).thenReturn("etag-2");
+        when(sessionRepository.advanceOffset(eq(ID), eq((long) MIN), eq(length), any())).thenReturn(1);
+        when(partRepository.findBySessionIdOrderByPartNumber(ID)).thenReturn(List.of(
+                new UploadPart(1L, ID, 1, "etag-1", (long) MIN),
+                new UploadPart(2L, ID, 2, "etag-2", 10L)));
+        when(photoService.registerUploadedPhoto(eq("key"), any(), eq(length), any(), any()))
+                .thenReturn(PhotoDTO.builder().id(42L).build());
+
+        UploadSession result = service.appendChunk(ID, MIN, new byte[10]);
+
+        assertEquals(length, result.getUploadOffset());
+        assertEquals(42L, result.getPhotoId());
+        verify(s3Service).completeMultipartUpload("key", "upload", Map.of(1, "etag-1", 2, "etag-2"));
+        verify(sessionRepository).markRegistered(eq(ID), eq(42L), any());
+        verify(partRepository).deleteBySessionId(ID);
+    }
+
+    @Test
+    void headFailsInsteadOfReportingUnfinishedUploadAsDone() {
+        long length = MIN + 10L;
+        stubSession(session(length, length, 2, null));
+        when(partRepository.findBySessionIdOrderByPartNumber(ID)).thenReturn(List.of(
+                new UploadPart(2L, ID, 2, "etag-2", 10L)));
+
+        assertThrows(RuntimeException.class, () -> service.getSession(ID));
+        verify(s3Service, never()).completeMultipartUpload(any(), any(), any());
+        verifyNoInteractions(photoService);
+    }
+
+    @Test
+    void completionFailureOnLastChunkIsNotAnOffsetConflict() {
+        long length = MIN + 10L;
+        when(sessionRepository.findById(ID)).thenReturn(
+                Optional.of(session(length, MIN, 1, null)),
+                Optional.of(session(length, length, 2, null)));
+        when(sessionRepository.claimPart(eq(ID), eq((long) MIN), eq(1), any())).thenReturn(1);
+        when(s3Service.uploadPart(any(), any(), eq(2), any())).thenReturn("etag-2");
+        when(sessionRepository.advanceOffset(eq(ID), eq((long) MIN), eq(length), any())).thenReturn(1);
+        when(partRepository.findBySessionIdOrderByPartNumber(ID)).thenReturn(List.of(
+                new UploadPart(1L, ID, 1, "etag-1", (long) MIN),
+                new UploadPart(2L, ID, 2, "etag-2", 10L)));
+        doThrow(new RuntimeException("Failed to complete multipart upload"))
+                .when(s3Service).completeMultipartUpload(any(), any(), any());
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.appendChunk(ID, MIN, new byte[10]));
+
+        assertFalse(e instanceof IllegalStateException);
+        verify(sessionRepository, never()).markRegistered(any(), any(), any());
+    }
+
+    @Test
+    void releasesPartNumberWhenPartUploadFails() {
+        stubSession(session(MIN * 2L, 0, 0, null));
+        when(sessionRepository.claimPart(eq(ID), eq(0L), eq(0), any())).thenReturn(1);
+        when(s3Service.uploadPart(any(), any(), eq(1), any())).thenThrow(new RuntimeException("Failed to upload part"));
+
+        assertThrows(RuntimeException.class, () -> service.appendChunk(ID, 0, new byte[MIN]));
+        verify(sessionRepository).releasePart(ID, 0L, 1);
+        verify(sessionRepository, never()).advanceOffset(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void acknowledgesRetriedFinalChunkOfCompletedUpload() {
+        stubSession(session(MIN, MIN, 1, 42L));
+
+        UploadSession result = service.appendChunk(ID, MIN, new byte[0]);
+
+        assertEquals(MIN, result.getUploadOffset());
+        verifyNoInteractions(s3Service, photoService);
+    }
+
+    @Test
+    void headOfCompletedUploadReportsFullOffset() {
+        stubSession(session(MIN, MIN, 1, 42L));
+
+        UploadSession result = service.getSession(ID);
+
+        assertEquals(result.getUploadLength(), result.getUploadOffset());
+        verifyNoInteractions(s3Service, photoService);
+    }
+
+    @Test
+    void terminatingCompletedUploadKeepsPhoto() {
+        stubSession(session(MIN, MIN, 1, 42L));
+
+        assertTrue(service.terminate(ID));
+        verifyNoInteractions(s3Service);
+        verify(sessionRepository).delete(any());
+    }
+
+    private void stubSession(UploadSession session) {
+        when(sessionRepository.findById(ID)).thenReturn(Optional.of(session));
+    }
+
+    private static UploadSession session(long length, long offset, int partCount, Long photoId) {
+        UploadSession session = new UploadSession();
+        session.setId(ID);
+        session.setObjectKey("key");
+        session.setS3UploadId("upload");
+        session.setFileName("photo.dng");
+        session.setContentType("image/x-adobe-dng");
+        session.setUploadLength(length);
+        session.setUploadOffset(offset);
+        session.setPartCount(partCount);
+        session.setPhotoId(photoId);
+        return session;
+    }
+}